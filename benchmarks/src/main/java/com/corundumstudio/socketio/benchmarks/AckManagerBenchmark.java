@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.corundumstudio.socketio.AckCallback;
+import com.corundumstudio.socketio.Configuration;
+import com.corundumstudio.socketio.ack.AckManager;
+import com.corundumstudio.socketio.handler.ClientHead;
+import com.corundumstudio.socketio.handler.ClientsBox;
+import com.corundumstudio.socketio.namespace.Namespace;
+import com.corundumstudio.socketio.protocol.Packet;
+import com.corundumstudio.socketio.protocol.PacketType;
+import com.corundumstudio.socketio.scheduler.HashedWheelTimeoutScheduler;
+import com.corundumstudio.socketio.transport.NamespaceClient;
+
+/**
+ * Ack registration followed by ack response processing.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AckManagerBenchmark {
+
+    private HashedWheelTimeoutScheduler scheduler;
+    private AckManager ackManager;
+    private NamespaceClient client;
+    private AckCallback<String> callback;
+    private Packet ackPacket;
+
+    @Setup
+    public void setup() {
+        Configuration configuration = BenchmarkClients.createConfiguration();
+        scheduler = new HashedWheelTimeoutScheduler();
+        ackManager = new AckManager(scheduler);
+
+        ClientHead head = BenchmarkClients.createClient(configuration, ackManager, new ClientsBox(), scheduler);
+        client = head.addNamespaceClient(new Namespace(Namespace.DEFAULT_NAME, configuration));
+
+        callback = new AckCallback<String>(String.class) {
+            @Override
+            public void onSuccess(String result) {
+            }
+        };
+
+        ackPacket = new Packet(PacketType.MESSAGE);
+        ackPacket.setSubType(PacketType.ACK);
+        ackPacket.setData(Arrays.<Object>asList("ok"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public long registerAndAck() {
+        long index = ackManager.registerAck(client.getBaseClient(), callback);
+        ackPacket.setAckId(index);
+        ackManager.onAck(client.getBaseClient(), ackPacket);
+        return index;
+    }
+
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.benchmarks;
+
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+import com.corundumstudio.socketio.Configuration;
+import com.corundumstudio.socketio.DisconnectableHub;
+import com.corundumstudio.socketio.HandshakeData;
+import com.corundumstudio.socketio.ServerMetrics;
+import com.corundumstudio.socketio.Transport;
+import com.corundumstudio.socketio.ack.AckManager;
+import com.corundumstudio.socketio.handler.ClientHead;
+import com.corundumstudio.socketio.handler.ClientsBox;
+import com.corundumstudio.socketio.protocol.JacksonJsonSupport;
+import com.corundumstudio.socketio.scheduler.CancelableScheduler;
+
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+
+/**
+ * Creates server side client structures without network stack.
+ *
+ */
+final class BenchmarkClients {
+
+    private static final DisconnectableHub NOOP_HUB = new DisconnectableHub() {
+        @Override
+        public void onDisconnect(ClientHead client) {
+        }
+    };
+
+    private BenchmarkClients() {
+    }
+
+    static Configuration createConfiguration() {
+        Configuration configuration = new Configuration();
+        configuration.setJsonSupport(new JacksonJsonSupport());
+        return configuration;
+    }
+
+    static ClientHead createClient(Configuration configuration, AckManager ackManager,
+                                        ClientsBox clientsBox, CancelableScheduler scheduler) {
+        HandshakeData handshakeData = new HandshakeData(new DefaultHttpHeaders(), new HashMap<String, List<String>>(),
+                                                            new InetSocketAddress(0), "/socket.io/", false);
+        ClientHead client = new ClientHead(UUID.randomUUID(), ackManager, NOOP_HUB, configuration.getStoreFactory(),
+                                            Collections.<String, Object>emptyMap(), handshakeData, clientsBox,
+                                            Transport.WEBSOCKET, scheduler, configuration, new ServerMetrics());
+        clientsBox.addClient(client);
+        return client;
+    }
+
+    static ClientHead createClient(Configuration configuration, AckManager ackManager,
+                                        ClientsBox clientsBox, CancelableScheduler scheduler, Channel channel) {
+        ClientHead client = createClient(configuration, ackManager, clientsBox, scheduler);
+        client.bindChannel(channel, Transport.WEBSOCKET);
+        return client;
+    }
+
+}
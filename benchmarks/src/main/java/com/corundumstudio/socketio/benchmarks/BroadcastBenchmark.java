@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.corundumstudio.socketio.Configuration;
+import com.corundumstudio.socketio.ack.AckManager;
+import com.corundumstudio.socketio.handler.ClientHead;
+import com.corundumstudio.socketio.handler.ClientsBox;
+import com.corundumstudio.socketio.handler.EncoderHandler;
+import com.corundumstudio.socketio.namespace.Namespace;
+import com.corundumstudio.socketio.protocol.Packet;
+import com.corundumstudio.socketio.protocol.PacketEncoder;
+import com.corundumstudio.socketio.protocol.PacketType;
+import com.corundumstudio.socketio.scheduler.HashedWheelTimeoutScheduler;
+
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * Room broadcast over websocket clients bound to {@link EmbeddedChannel}.
+ * Encoded frames are discarded right after {@link EncoderHandler}.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BroadcastBenchmark {
+
+    private static final String ROOM = "room";
+
+    @Sharable
+    private static class DiscardHandler extends ChannelOutboundHandlerAdapter {
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            ReferenceCountUtil.release(msg);
+            promise.trySuccess();
+        }
+
+    }
+
+    @Param({"1000", "10000", "100000"})
+    public int clientsAmount;
+
+    private HashedWheelTimeoutScheduler scheduler;
+    private Namespace namespace;
+    private Packet packet;
+    private final List<EmbeddedChannel> channels = new ArrayList<EmbeddedChannel>();
+
+    @Setup
+    public void setup() throws IOException {
+        Configuration configuration = BenchmarkClients.createConfiguration();
+        configuration.setAddVersionHeader(false);
+
+        scheduler = new HashedWheelTimeoutScheduler();
+        AckManager ackManager = new AckManager(scheduler);
+        ClientsBox clientsBox = new ClientsBox();
+        PacketEncoder encoder = new PacketEncoder(configuration, configuration.getJsonSupport());
+        EncoderHandler encoderHandler = new EncoderHandler(configuration, encoder);
+        DiscardHandler discardHandler = new DiscardHandler();
+
+        namespace = new Namespace(Namespace.DEFAULT_NAME, configuration);
+        for (int i = 0; i < clientsAmount; i++) {
+            EmbeddedChannel channel = new EmbeddedChannel(discardHandler, encoderHandler);
+            channels.add(channel);
+
+            ClientHead client = BenchmarkClients.createClient(configuration, ackManager, clientsBox, scheduler, channel);
+            client.addNamespaceClient(namespace);
+            namespace.joinRoom(ROOM, client.getSessionId());
+        }
+
+        packet = new Packet(PacketType.MESSAGE);
+        packet.setSubType(PacketType.EVENT);
+        packet.setName("message");
+        packet.setData(Arrays.<Object>asList("user1", "hello everyone in the room"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (EmbeddedChannel channel : channels) {
+            channel.finishAndReleaseAll();
+        }
+        channels.clear();
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public void sendEvent() {
+        namespace.getRoomOperations(ROOM).sendEvent("message", "user1", "hello everyone in the room");
+    }
+
+    @Benchmark
+    public void sendPacket() {
+        Packet p = new Packet(PacketType.MESSAGE);
+        p.setSubType(packet.getSubType());
+        p.setName(packet.getName());
+        p.setData(packet.getData());
+        namespace.getRoomOperations(ROOM).send(p);
+    }
+
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.corundumstudio.socketio.Configuration;
+import com.corundumstudio.socketio.ack.AckManager;
+import com.corundumstudio.socketio.handler.ClientHead;
+import com.corundumstudio.socketio.handler.ClientsBox;
+import com.corundumstudio.socketio.protocol.JacksonJsonSupport;
+import com.corundumstudio.socketio.protocol.Packet;
+import com.corundumstudio.socketio.protocol.PacketDecoder;
+import com.corundumstudio.socketio.protocol.PacketEncoder;
+import com.corundumstudio.socketio.protocol.PacketType;
+import com.corundumstudio.socketio.scheduler.HashedWheelTimeoutScheduler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.util.CharsetUtil;
+
+/**
+ * Decoding of websocket frames, xhr-polling payloads and binary attachments.
+ * Run with {@code -prof gc} to compare allocations per packet.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketDecoderBenchmark {
+
+    private static final int PACKETS_AMOUNT = 10;
+
+    private HashedWheelTimeoutScheduler scheduler;
+    private PacketDecoder decoder;
+    private ClientHead client;
+
+    private ByteBuf eventFrame;
+    private ByteBuf pollingPayload;
+    private ByteBuf binaryEventFrame;
+    private ByteBuf attachmentFrame;
+
+    @Setup
+    public void setup() throws IOException {
+        Configuration configuration = BenchmarkClients.createConfiguration();
+        JacksonJsonSupport jsonSupport = (JacksonJsonSupport) configuration.getJsonSupport();
+        jsonSupport.addEventMapping("/chat", "message", Map.class);
+        jsonSupport.addEventMapping("/chat", "file", byte[].class);
+
+        scheduler = new HashedWheelTimeoutScheduler();
+        AckManager ackManager = new AckManager(scheduler);
+        decoder = new PacketDecoder(jsonSupport, ackManager);
+        client = BenchmarkClients.createClient(configuration, ackManager, new ClientsBox(), scheduler);
+
+        eventFrame = Unpooled.unreleasableBuffer(Unpooled.copiedBuffer(
+                "42/chat,12[\"message\",{\"user\":\"user1\",\"text\":\"hello\"}]", CharsetUtil.UTF_8));
+
+        PacketEncoder encoder = new PacketEncoder(configuration, jsonSupport);
+        Queue<Packet> packets = new ArrayDeque<Packet>(PACKETS_AMOUNT);
+        for (int i = 0; i < PACKETS_AMOUNT; i++) {
+            Packet packet = new Packet(PacketType.MESSAGE);
+            packet.setSubType(PacketType.EVENT);
+            packet.setNsp("/chat");
+            packet.setName("message");
+            packet.setData(Arrays.<Object>asList(Collections.singletonMap("text", "hello")));
+            packets.add(packet);
+        }
+        ByteBuf payload = Unpooled.buffer();
+        encoder.encodePackets(packets, payload, UnpooledByteBufAllocator.DEFAULT, PACKETS_AMOUNT);
+        pollingPayload = Unpooled.unreleasableBuffer(payload);
+
+        binaryEventFrame = Unpooled.unreleasableBuffer(Unpooled.copiedBuffer(
+                "451-/chat,[\"file\",{\"_placeholder\":true,\"num\":0}]", CharsetUtil.UTF_8));
+        byte[] attachment = new byte[1025];
+        attachment[0] = 4;
+        attachmentFrame = Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(attachment));
+    }
+
+    @TearDown
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public Packet decodeEvent() throws IOException {
+        return decoder.decodePackets(eventFrame.duplicate(), client);
+    }
+
+    @Benchmark
+    public void decodePollingPayload(Blackhole blackhole) throws IOException {
+        ByteBuf buffer = pollingPayload.duplicate();
+        while (buffer.isReadable()) {
+            blackhole.consume(decoder.decodePackets(buffer, client));
+        }
+    }
+
+    @Benchmark
+    public Packet decodeBinaryEvent() throws IOException {
+        decoder.decodePackets(binaryEventFrame.duplicate(), client);
+        return decoder.decodePackets(attachmentFrame.duplicate(), client);
+    }
+
+}
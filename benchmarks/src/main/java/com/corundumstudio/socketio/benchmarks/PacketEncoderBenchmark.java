@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.corundumstudio.socketio.Configuration;
+import com.corundumstudio.socketio.protocol.Packet;
+import com.corundumstudio.socketio.protocol.PacketEncoder;
+import com.corundumstudio.socketio.protocol.PacketType;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+
+/**
+ * Websocket, xhr-polling and jsonp encoding of event packets.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketEncoderBenchmark {
+
+    private static final int PACKETS_AMOUNT = 10;
+
+    @Param({"16", "1024"})
+    public int payloadSize;
+
+    private PacketEncoder encoder;
+    private ByteBufAllocator allocator;
+    private String payload;
+    private byte[] binaryPayload;
+    private Packet sharedPacket;
+
+    @Setup
+    public void setup() {
+        Configuration configuration = BenchmarkClients.createConfiguration();
+        encoder = new PacketEncoder(configuration, configuration.getJsonSupport());
+        allocator = PooledByteBufAllocator.DEFAULT;
+
+        char[] chars = new char[payloadSize];
+        Arrays.fill(chars, 'a');
+        payload = new String(chars);
+        binaryPayload = new byte[payloadSize];
+
+        sharedPacket = createEvent(payload);
+        sharedPacket.setEncodeOnce(true);
+    }
+
+    private Packet createEvent(Object data) {
+        Packet packet = new Packet(PacketType.MESSAGE);
+        packet.setSubType(PacketType.EVENT);
+        packet.setNsp("/chat");
+        packet.setName("message");
+        packet.setData(Arrays.asList(data));
+        return packet;
+    }
+
+    private Queue<Packet> createQueue() {
+        Queue<Packet> queue = new ArrayDeque<Packet>(PACKETS_AMOUNT);
+        for (int i = 0; i < PACKETS_AMOUNT; i++) {
+            queue.add(createEvent(payload));
+        }
+        return queue;
+    }
+
+    @Benchmark
+    public int encodePacket() throws IOException {
+        ByteBuf out = encoder.encodePacket(createEvent(payload), allocator);
+        int size = out.readableBytes();
+        out.release();
+        return size;
+    }
+
+    @Benchmark
+    public int encodeSharedPacket() throws IOException {
+        ByteBuf out = encoder.encodePacket(sharedPacket, allocator);
+        int size = out.readableBytes();
+        out.release();
+        return size;
+    }
+
+    @Benchmark
+    public int encodeBinaryPacket() throws IOException {
+        ByteBuf out = encoder.encodePacket(createEvent(binaryPayload), allocator);
+        int size = out.readableBytes();
+        out.release();
+        return size;
+    }
+
+    @Benchmark
+    public int encodePackets() throws IOException {
+        ByteBuf out = encoder.allocateBuffer(allocator);
+        encoder.encodePackets(createQueue(), out, allocator, PACKETS_AMOUNT);
+        int size = out.readableBytes();
+        out.release();
+        return size;
+    }
+
+    @Benchmark
+    public int encodeJsonP() throws IOException {
+        ByteBuf out = encoder.allocateBuffer(allocator);
+        encoder.encodeJsonP(1, createQueue(), out, allocator, PACKETS_AMOUNT);
+        int size = out.readableBytes();
+        out.release();
+        return size;
+    }
+
+}
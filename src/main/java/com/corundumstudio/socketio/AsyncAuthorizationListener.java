@@ -0,0 +1,37 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio;
+
+import io.netty.util.concurrent.Future;
+
+/**
+ * Authorization listener which doesn't block Netty thread.
+ * Handshake is completed once returned future is completed.
+ *
+ * @see Configuration#setAsyncAuthorizationListener(AsyncAuthorizationListener)
+ */
+public interface AsyncAuthorizationListener {
+
+    /**
+     * Checks is client with handshake data is authorized.
+     * Failed future is treated as unauthorized response.
+     *
+     * @param data - handshake data
+     * @return - future of authorization response
+     */
+    Future<AuthorizationResponse> isAuthorized(HandshakeData data);
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio;
+
+/**
+ * Cache of authorization listener results.
+ * Handshakes with the same key reuse cached result
+ * and skip authorization listener invocation.
+ * Cache is disabled until key extractor is defined.
+ *
+ * @see ServerMetrics#getAuthorizationCacheHits()
+ */
+public class AuthorizationCacheConfig {
+
+    private HandshakeKeyExtractor keyExtractor;
+
+    private int maxSize = 10000;
+
+    private long ttl = 60000;
+
+    /**
+     * @param name - header name
+     * @return extractor of header value
+     */
+    public static HandshakeKeyExtractor headerKey(final String name) {
+        return new HandshakeKeyExtractor() {
+            @Override
+            public String getKey(HandshakeData data) {
+                return data.getHttpHeaders().get(name);
+            }
+        };
+    }
+
+    /**
+     * @param name - url param name
+     * @return extractor of url param value
+     */
+    public static HandshakeKeyExtractor urlParamKey(final String name) {
+        return new HandshakeKeyExtractor() {
+            @Override
+            public String getKey(HandshakeData data) {
+                return data.getSingleUrlParam(name);
+            }
+        };
+    }
+
+    public HandshakeKeyExtractor getKeyExtractor() {
+        return keyExtractor;
+    }
+    /**
+     * Cache key extractor, for example <code>AuthorizationCacheConfig.headerKey("Authorization")</code>
+     * <p>
+     * Default is <code>null</code> - cache disabled
+     *
+     * @param keyExtractor - key extractor
+     */
+    public void setKeyExtractor(HandshakeKeyExtractor keyExtractor) {
+        this.keyExtractor = keyExtractor;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+    /**
+     * Max amount of cached results.
+     * Least recently used results are evicted first.
+     * <p>
+     * Default is <code>10000</code>
+     *
+     * @param maxSize - results amount
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+    /**
+     * Time to live of cached result.
+     * <p>
+     * Default is <code>60000</code>
+     *
+     * @param ttl - time in milliseconds
+     */
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+}
@@ -0,0 +1,204 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio;
+
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.corundumstudio.socketio.handler.ClientHead;
+import com.corundumstudio.socketio.transport.NamespaceClient;
+
+/**
+ * Collects acks of broadcast recipients into single {@link BroadcastAckResult}.
+ * Recipient callbacks have no own timeouts, all of them are
+ * expired by single shared deadline. Result is completed
+ * directly in thread which has received the last required ack.
+ * Recipients whose acks are no longer awaited after quorum is reached
+ * are neither in results nor in timed out session ids.
+ *
+ * @param <T> - ack result type
+ */
+class BroadcastAckCollector<T> {
+
+    private static final Object NULL_RESULT = new Object();
+    private static final Object TIMED_OUT = new Object();
+    private static final Object SKIPPED = new Object();
+
+    private final Class<T> resultClass;
+    private final SocketIOClient[] recipients;
+    private final long[] ackIds;
+    // null - ack is pending
+    private final AtomicReferenceArray<Object> states;
+    private final AtomicInteger pending;
+    private final AtomicInteger acknowledged = new AtomicInteger();
+    private final int quorum;
+    private final Promise<BroadcastAckResult<T>> promise = ImmediateEventExecutor.INSTANCE.newPromise();
+
+    // result isn't completed until event is sent to all recipients
+    private volatile boolean started;
+    private volatile ScheduledFuture<?> timeoutFuture;
+
+    BroadcastAckCollector(Class<T> resultClass, List<SocketIOClient> recipients) {
+        this(resultClass, recipients, -1);
+    }
+
+    /**
+     * @param resultClass - ack result class
+     * @param recipients - broadcast recipients
+     * @param quorum - amount of acks to complete result,
+     *                 all recipients are awaited if it's not positive
+     */
+    BroadcastAckCollector(Class<T> resultClass, List<SocketIOClient> recipients, int quorum) {
+        this.resultClass = resultClass;
+        this.recipients = recipients.toArray(new SocketIOClient[recipients.size()]);
+        this.ackIds = new long[this.recipients.length];
+        this.states = new AtomicReferenceArray<Object>(this.recipients.length);
+        this.pending = new AtomicInteger(this.recipients.length);
+        if (quorum <= 0 || quorum > this.recipients.length) {
+            quorum = this.recipients.length;
+        }
+        this.quorum = quorum;
+    }
+
+    int size() {
+        return recipients.length;
+    }
+
+    SocketIOClient getRecipient(int index) {
+        return recipients[index];
+    }
+
+    void setAckId(int index, Long ackId) {
+        if (ackId != null) {
+            ackIds[index] = ackId;
+        }
+    }
+
+    AckCallback<T> createCallback(final int index) {
+        return new AckCallback<T>(resultClass) {
+            @Override
+            public void onSuccess(T result) {
+                Object state = result;
+                if (result == null) {
+                    state = NULL_RESULT;
+                }
+                complete(index, state);
+            }
+
+            @Override
+            public void onTimeout() {
+                complete(index, TIMED_OUT);
+            }
+        };
+    }
+
+    /**
+     * @param timeout - acks timeout in seconds,
+     *                  acks are awaited without deadline if it's not positive
+     * @return result promise
+     */
+    Promise<BroadcastAckResult<T>> start(int timeout) {
+        started = true;
+        if (pending.get() == 0 || acknowledged.get() >= quorum) {
+            finish();
+            return promise;
+        }
+        if (timeout <= 0) {
+            return promise;
+        }
+
+        timeoutFuture = GlobalEventExecutor.INSTANCE.schedule(new Runnable() {
+            @Override
+            public void run() {
+                onTimeout();
+            }
+        }, timeout, TimeUnit.SECONDS);
+        if (promise.isDone()) {
+            timeoutFuture.cancel(false);
+        }
+        return promise;
+    }
+
+    private void complete(int index, Object state) {
+        if (!states.compareAndSet(index, null, state)) {
+            return;
+        }
+
+        boolean quorumReached = state != TIMED_OUT
+                                    && acknowledged.incrementAndGet() == quorum;
+        if ((pending.decrementAndGet() == 0 || quorumReached) && started) {
+            finish();
+        }
+    }
+
+    private void onTimeout() {
+        release(TIMED_OUT);
+        finish();
+    }
+
+    private void release(Object state) {
+        for (int i = 0; i < recipients.length; i++) {
+            if (states.compareAndSet(i, null, state)
+                    && recipients[i] instanceof NamespaceClient) {
+                // callback isn't needed anymore
+                ClientHead client = ((NamespaceClient) recipients[i]).getBaseClient();
+                client.getAckManager().removeCallback(client, ackIds[i]);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void finish() {
+        if (promise.isDone()) {
+            return;
+        }
+        // quorum is reached, acks of other recipients aren't awaited
+        // and they are left out of result
+        release(SKIPPED);
+
+        Map<UUID, T> results = new HashMap<UUID, T>();
+        List<UUID> timedOut = new ArrayList<UUID>();
+        for (int i = 0; i < recipients.length; i++) {
+            Object state = states.get(i);
+            if (state == TIMED_OUT) {
+                timedOut.add(recipients[i].getSessionId());
+            } else if (state == NULL_RESULT) {
+                results.put(recipients[i].getSessionId(), null);
+            } else if (state != null && state != SKIPPED) {
+                results.put(recipients[i].getSessionId(), (T) state);
+            }
+        }
+
+        if (promise.trySuccess(new BroadcastAckResult<T>(results, timedOut))) {
+            ScheduledFuture<?> future = timeoutFuture;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Aggregated result of broadcast with acknowledgement.
+ *
+ * @param <T> - ack result type
+ *
+ * @see BroadcastOperations#sendEventWithAcks(String, Class, int, Object...)
+ */
+public class BroadcastAckResult<T> {
+
+    private final Map<UUID, T> results;
+    private final List<UUID> timedOutSessionIds;
+
+    public BroadcastAckResult(Map<UUID, T> results, List<UUID> timedOutSessionIds) {
+        this.results = results;
+        this.timedOutSessionIds = timedOutSessionIds;
+    }
+
+    /**
+     * Clients which haven't acked before quorum has been reached
+     * aren't included.
+     *
+     * @return ack results by client session id
+     */
+    public Map<UUID, T> getResults() {
+        return results;
+    }
+
+    /**
+     * @return session ids of clients which haven't sent ack in time
+     * or disconnected before it. Clients which haven't acked
+     * before quorum has been reached aren't included.
+     */
+    public List<UUID> getTimedOutSessionIds() {
+        return timedOutSessionIds;
+    }
+
+    public boolean isAllAcknowledged() {
+        return timedOutSessionIds.isEmpty();
+    }
+
+}
@@ -15,10 +15,12 @@
  */
 package com.corundumstudio.socketio;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -31,6 +33,8 @@ import com.corundumstudio.socketio.store.StoreFactory;
 import com.corundumstudio.socketio.store.pubsub.DispatchMessage;
 import com.corundumstudio.socketio.store.pubsub.PubSubType;
 
+import io.netty.util.concurrent.Future;
+
 /**
  * Fully thread-safe.
  *
@@ -39,14 +43,48 @@ public class BroadcastOperations implements ClientOperations {
 
     private final Iterable<SocketIOClient> clients;
     private final StoreFactory storeFactory;
+    private final Collection<? extends SocketIONamespace> namespaces;
+    private final String room;
 
     public BroadcastOperations(Iterable<SocketIOClient> clients, StoreFactory storeFactory) {
+        this(clients, storeFactory, null, null);
+    }
+
+    /**
+     * Broadcast operations with known target. Packet is dispatched
+     * to other nodes with single message per namespace.
+     *
+     * @param clients - local recipients
+     * @param storeFactory - store factory
+     * @param namespaces - target namespaces
+     * @param room - target room, <code>null</code> means all namespace clients
+     */
+    public BroadcastOperations(Iterable<SocketIOClient> clients, StoreFactory storeFactory,
+                                Collection<? extends SocketIONamespace> namespaces, String room) {
         super();
         this.clients = clients;
         this.storeFactory = storeFactory;
+        this.namespaces = namespaces;
+        this.room = room;
     }
 
     private void dispatch(Packet packet) {
+        if (namespaces == null) {
+            dispatchToClientRooms(packet);
+            return;
+        }
+
+        for (SocketIONamespace namespace : namespaces) {
+            // each namespace client joins room named by namespace on connect
+            String targetRoom = room;
+            if (targetRoom == null) {
+                targetRoom = namespace.getName();
+            }
+            storeFactory.pubSubStore().publish(PubSubType.DISPATCH, new DispatchMessage(targetRoom, packet, namespace.getName()));
+        }
+    }
+
+    private void dispatchToClientRooms(Packet packet) {
         Map<String, Set<String>> namespaceRooms = new HashMap<String, Set<String>>();
         for (SocketIOClient socketIOClient : clients) {
             Namespace namespace = (Namespace)socketIOClient.getNamespace();
@@ -70,14 +108,32 @@ public class BroadcastOperations implements ClientOperations {
         return new IterableCollection<SocketIOClient>(clients);
     }
 
+    /**
+     * Packet is encoded only once per namespace and the same
+     * encoded frame is written to each client.
+     * So packet should not be modified after this method invocation.
+     *
+     * @param packet - packet to broadcast
+     */
     @Override
     public void send(Packet packet) {
+        Map<String, Packet> namespacePackets = new HashMap<String, Packet>();
         for (SocketIOClient client : clients) {
-            client.send(packet);
+            client.send(sharedPacket(namespacePackets, client, packet));
         }
         dispatch(packet);
     }
 
+    private Packet sharedPacket(Map<String, Packet> namespacePackets, SocketIOClient client, Packet packet) {
+        String nsp = client.getNamespace().getName();
+        Packet sharedPacket = namespacePackets.get(nsp);
+        if (sharedPacket == null) {
+            sharedPacket = packet.withSharedNsp(nsp);
+            namespacePackets.put(nsp, sharedPacket);
+        }
+        return sharedPacket;
+    }
+
     public <T> void send(Packet packet, BroadcastAckCallback<T> ackCallback) {
         for (SocketIOClient client : clients) {
             client.send(packet, ackCallback.createClientCallback(client));
@@ -98,11 +154,12 @@ public class BroadcastOperations implements ClientOperations {
         packet.setName(name);
         packet.setData(Arrays.asList(data));
 
+        Map<String, Packet> namespacePackets = new HashMap<String, Packet>();
         for (SocketIOClient client : clients) {
             if (client.getSessionId().equals(excludedClient.getSessionId())) {
                 continue;
             }
-            client.send(packet);
+            client.send(sharedPacket(namespacePackets, client, packet));
         }
         dispatch(packet);
     }
@@ -133,5 +190,59 @@ public class BroadcastOperations implements ClientOperations {
         ackCallback.loopFinished();
     }
 
+    /**
+     * Sends event to each client and collects their acks.
+     * Returned future is completed once all clients have acknowledged
+     * or <code>timeout</code> has elapsed. Clients which haven't
+     * acknowledged in time are listed in result.
+     * Only clients connected to this node are awaited.
+     *
+     * @param <T> - ack result type
+     * @param name - event name
+     * @param resultClass - ack result class
+     * @param timeout - acks timeout in seconds,
+     *                  <code>-1</code> to await acks without deadline
+     * @param data - event data
+     * @return future of aggregated result
+     */
+    public <T> Future<BroadcastAckResult<T>> sendEventWithAcks(String name, Class<T> resultClass, int timeout, Object... data) {
+        return sendEventWithQuorum(name, resultClass, timeout, -1, data);
+    }
+
+    /**
+     * Sends event to each client and collects their acks.
+     * Returned future is completed directly in thread which has received
+     * <code>quorum</code> acks or once <code>timeout</code> has elapsed.
+     * Only clients connected to this node are awaited.
+     *
+     * @param <T> - ack result type
+     * @param name - event name
+     * @param resultClass - ack result class
+     * @param timeout - acks timeout in seconds,
+     *                  <code>-1</code> to await acks without deadline
+     * @param quorum - amount of acks to complete result,
+     *                 <code>-1</code> to await all clients
+     * @param data - event data
+     * @return future of aggregated result
+     */
+    public <T> Future<BroadcastAckResult<T>> sendEventWithQuorum(String name, Class<T> resultClass, int timeout, int quorum, Object... data) {
+        List<SocketIOClient> recipients = new ArrayList<SocketIOClient>();
+        for (SocketIOClient client : clients) {
+            recipients.add(client);
+        }
+
+        List<Object> args = Arrays.asList(data);
+        BroadcastAckCollector<T> collector = new BroadcastAckCollector<T>(resultClass, recipients, quorum);
+        for (int i = 0; i < collector.size(); i++) {
+            Packet packet = new Packet(PacketType.MESSAGE);
+            packet.setSubType(PacketType.EVENT);
+            packet.setName(name);
+            packet.setData(args);
+
+            collector.getRecipient(i).send(packet, collector.createCallback(i));
+            collector.setAckId(i, packet.getAckId());
+        }
+        return collector.start(timeout);
+    }
 
 }
@@ -0,0 +1,42 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio;
+
+/**
+ * Netty transport used for server and client channels.
+ *
+ * @see Configuration#setChannelTransport(ChannelTransport)
+ */
+public enum ChannelTransport {
+
+    /**
+     * Java NIO transport, available on any platform
+     */
+    NIO,
+
+    /**
+     * Linux native epoll transport.
+     * NIO is used if it's not available
+     */
+    EPOLL,
+
+    /**
+     * Best native transport available on current platform
+     * or NIO if there is no such transport
+     */
+    AUTO
+
+}
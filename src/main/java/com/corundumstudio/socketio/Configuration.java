@@ -18,10 +18,13 @@ package com.corundumstudio.socketio;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import com.corundumstudio.socketio.handler.SuccessAuthorizationListener;
 import com.corundumstudio.socketio.listener.DefaultExceptionListener;
 import com.corundumstudio.socketio.listener.ExceptionListener;
+import com.corundumstudio.socketio.namespace.MapRoomRegistryFactory;
+import com.corundumstudio.socketio.namespace.RoomRegistryFactory;
 import com.corundumstudio.socketio.protocol.JsonSupport;
 import com.corundumstudio.socketio.store.MemoryStoreFactory;
 import com.corundumstudio.socketio.store.StoreFactory;
@@ -40,6 +43,8 @@ public class Configuration {
     private int workerThreads = 0; // 0 = current_processors_amount * 2
     private boolean useLinuxNativeEpoll;
 
+    private ChannelTransport channelTransport = ChannelTransport.NIO;
+
     private int upgradeTimeout = 10000;
     private int pingTimeout = 60000;
     private int pingInterval = 25000;
@@ -74,6 +79,11 @@ public class Configuration {
 
     private AuthorizationListener authorizationListener = new SuccessAuthorizationListener();
 
+    private AsyncAuthorizationListener asyncAuthorizationListener;
+    private int asyncAuthorizationTimeout = 10000;
+
+    private AuthorizationCacheConfig authorizationCacheConfig = new AuthorizationCacheConfig();
+
     private AckMode ackMode = AckMode.AUTO_SUCCESS_ONLY;
 
     private boolean addVersionHeader = true;
@@ -86,6 +96,32 @@ public class Configuration {
 
     private boolean randomSession = false;
 
+    private int flushConsolidationLimit = 0;
+
+    private int schedulerShards = 1;
+
+    private int pingTimeoutCheckInterval = 0;
+
+    private Executor listenerExecutor;
+
+    private int maxOutboundPackets = 0;
+
+    private long maxOutboundBytes = 0;
+
+    private SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.DROP_OLDEST;
+
+    private int pollingMaxPackets = 50;
+
+    private int pollingMaxBytes = 0;
+
+    private int pollingLinger = 0;
+
+    private boolean httpKeepAlive = true;
+
+    private HandshakeLimitConfig handshakeLimitConfig = new HandshakeLimitConfig();
+
+    private RoomRegistryFactory roomRegistryFactory = new MapRoomRegistryFactory();
+
     public Configuration() {
     }
 
@@ -98,6 +134,7 @@ public class Configuration {
         setBossThreads(conf.getBossThreads());
         setWorkerThreads(conf.getWorkerThreads());
         setUseLinuxNativeEpoll(conf.isUseLinuxNativeEpoll());
+        setChannelTransport(conf.getChannelTransport());
 
         setPingInterval(conf.getPingInterval());
         setPingTimeout(conf.getPingTimeout());
@@ -138,6 +175,9 @@ public class Configuration {
         setPreferDirectBuffer(conf.isPreferDirectBuffer());
         setStoreFactory(conf.getStoreFactory());
         setAuthorizationListener(conf.getAuthorizationListener());
+        setAsyncAuthorizationListener(conf.getAsyncAuthorizationListener());
+        setAsyncAuthorizationTimeout(conf.getAsyncAuthorizationTimeout());
+        setAuthorizationCacheConfig(conf.getAuthorizationCacheConfig());
         setExceptionListener(conf.getExceptionListener());
         setSocketConfig(conf.getSocketConfig());
         setAckMode(conf.getAckMode());
@@ -151,6 +191,19 @@ public class Configuration {
         setHttpCompression(conf.isHttpCompression());
         setWebsocketCompression(conf.isWebsocketCompression());
         setRandomSession(conf.randomSession);
+        setFlushConsolidationLimit(conf.getFlushConsolidationLimit());
+        setSchedulerShards(conf.getSchedulerShards());
+        setPingTimeoutCheckInterval(conf.getPingTimeoutCheckInterval());
+        setListenerExecutor(conf.getListenerExecutor());
+        setMaxOutboundPackets(conf.getMaxOutboundPackets());
+        setMaxOutboundBytes(conf.getMaxOutboundBytes());
+        setSlowConsumerPolicy(conf.getSlowConsumerPolicy());
+        setPollingMaxPackets(conf.getPollingMaxPackets());
+        setPollingMaxBytes(conf.getPollingMaxBytes());
+        setPollingLinger(conf.getPollingLinger());
+        setHttpKeepAlive(conf.isHttpKeepAlive());
+        setHandshakeLimitConfig(conf.getHandshakeLimitConfig());
+        setRoomRegistryFactory(conf.getRoomRegistryFactory());
     }
 
     public JsonSupport getJsonSupport() {
@@ -369,6 +422,52 @@ public class Configuration {
         return authorizationListener;
     }
 
+    /**
+     * Authorization listener invoked instead of {@link #getAuthorizationListener()}
+     * if defined. Netty thread isn't blocked while authorization is in progress.
+     * <p>
+     * Default is <code>null</code>
+     *
+     * @param asyncAuthorizationListener - authorization listener itself
+     *
+     * @see AsyncAuthorizationListener
+     */
+    public void setAsyncAuthorizationListener(AsyncAuthorizationListener asyncAuthorizationListener) {
+        this.asyncAuthorizationListener = asyncAuthorizationListener;
+    }
+    public AsyncAuthorizationListener getAsyncAuthorizationListener() {
+        return asyncAuthorizationListener;
+    }
+
+    /**
+     * Max time to wait for {@link AsyncAuthorizationListener} result.
+     * Handshake is treated as unauthorized once timeout is elapsed.
+     * <p>
+     * Default is <code>10000</code>
+     *
+     * @param asyncAuthorizationTimeout - time in milliseconds, <code>0</code> to wait without limit
+     */
+    public void setAsyncAuthorizationTimeout(int asyncAuthorizationTimeout) {
+        this.asyncAuthorizationTimeout = asyncAuthorizationTimeout;
+    }
+    public int getAsyncAuthorizationTimeout() {
+        return asyncAuthorizationTimeout;
+    }
+
+    /**
+     * Cache of authorization listener results.
+     *
+     * @param authorizationCacheConfig - cache config
+     *
+     * @see AuthorizationCacheConfig
+     */
+    public void setAuthorizationCacheConfig(AuthorizationCacheConfig authorizationCacheConfig) {
+        this.authorizationCacheConfig = authorizationCacheConfig;
+    }
+    public AuthorizationCacheConfig getAuthorizationCacheConfig() {
+        return authorizationCacheConfig;
+    }
+
     /**
      * Exception listener invoked on any exception in
      * SocketIO listener
@@ -502,6 +601,22 @@ public class Configuration {
         this.useLinuxNativeEpoll = useLinuxNativeEpoll;
     }
 
+    /**
+     * Netty transport used by server. Native transport specific options
+     * of {@link SocketConfig} are applied only if native transport is used.
+     * <code>useLinuxNativeEpoll = true</code> is the same as <code>ChannelTransport.EPOLL</code>
+     * <p>
+     * Default is <code>ChannelTransport.NIO</code>
+     *
+     * @param channelTransport - transport
+     */
+    public void setChannelTransport(ChannelTransport channelTransport) {
+        this.channelTransport = channelTransport;
+    }
+    public ChannelTransport getChannelTransport() {
+        return channelTransport;
+    }
+
     /**
      * Set the name of the requested SSL protocol
      *
@@ -565,4 +680,227 @@ public class Configuration {
     public void setRandomSession(boolean randomSession) {
         this.randomSession = randomSession;
     }
+
+    /**
+     * Consolidates channel flushes. Up to <code>flushConsolidationLimit</code>
+     * flushes are combined into a single socket write while a read
+     * or a packets drain is in progress.
+     * Helps to reduce amount of syscalls under high broadcast fan-out
+     * for the price of a slightly increased latency.
+     * <p>
+     * Default is <code>0</code> - consolidation is disabled
+     *
+     * @param flushConsolidationLimit - max flushes amount to consolidate
+     */
+    public void setFlushConsolidationLimit(int flushConsolidationLimit) {
+        this.flushConsolidationLimit = flushConsolidationLimit;
+    }
+    public int getFlushConsolidationLimit() {
+        return flushConsolidationLimit;
+    }
+
+    /**
+     * Amount of timer shards used for ping, ack and upgrade timeouts.
+     * Each shard has own timer thread, timeouts are spread by session.
+     * Reduces contention of timeouts rescheduling with big amount
+     * of active connections.
+     * <p>
+     * Default is <code>1</code> - single timer
+     *
+     * @param schedulerShards - timer shards amount
+     *
+     * @see com.corundumstudio.socketio.scheduler.ShardedTimeoutScheduler
+     */
+    public void setSchedulerShards(int schedulerShards) {
+        this.schedulerShards = schedulerShards;
+    }
+    public int getSchedulerShards() {
+        return schedulerShards;
+    }
+
+    /**
+     * Interval of periodic ping timeout check.
+     * In this mode client packets only update last activity time
+     * instead of ping timeout rescheduling, clients without activity
+     * during <code>pingTimeout + pingInterval</code> are disconnected
+     * by the check. Disconnection may be delayed up to this interval.
+     * <p>
+     * Default is <code>0</code> - ping timeout is rescheduled on each packet
+     *
+     * @param pingTimeoutCheckInterval - time in milliseconds
+     */
+    public void setPingTimeoutCheckInterval(int pingTimeoutCheckInterval) {
+        this.pingTimeoutCheckInterval = pingTimeoutCheckInterval;
+    }
+    public int getPingTimeoutCheckInterval() {
+        return pingTimeoutCheckInterval;
+    }
+
+    /**
+     * Executor for connect, disconnect, ping and event listeners.
+     * Listeners of the same client are executed one by one
+     * in order of packets arrival, except events which have own executor
+     * set by {@link SocketIONamespace#setEventExecutor(String, Executor)}.
+     * Could be bounded thread pool
+     * or virtual thread per task executor on Java 21+.
+     * Executor isn't shutdown by server.
+     * <p>
+     * Default is <code>null</code> - listeners are executed in Netty I/O thread
+     *
+     * @param listenerExecutor - listeners executor
+     *
+     * @see SocketIONamespace#setListenerExecutor(Executor)
+     */
+    public void setListenerExecutor(Executor listenerExecutor) {
+        this.listenerExecutor = listenerExecutor;
+    }
+    public Executor getListenerExecutor() {
+        return listenerExecutor;
+    }
+
+    /**
+     * Maximum amount of packets queued for each client
+     * while they can't be written to channel.
+     * <p>
+     * Default is <code>0</code> - unlimited
+     *
+     * @param maxOutboundPackets - packets amount
+     *
+     * @see #setSlowConsumerPolicy(SlowConsumerPolicy)
+     */
+    public void setMaxOutboundPackets(int maxOutboundPackets) {
+        this.maxOutboundPackets = maxOutboundPackets;
+    }
+    public int getMaxOutboundPackets() {
+        return maxOutboundPackets;
+    }
+
+    /**
+     * Maximum estimated size of packets queued for each client
+     * while they can't be written to channel.
+     * <p>
+     * Default is <code>0</code> - unlimited
+     *
+     * @param maxOutboundBytes - size in bytes
+     *
+     * @see #setSlowConsumerPolicy(SlowConsumerPolicy)
+     */
+    public void setMaxOutboundBytes(long maxOutboundBytes) {
+        this.maxOutboundBytes = maxOutboundBytes;
+    }
+    public long getMaxOutboundBytes() {
+        return maxOutboundBytes;
+    }
+
+    /**
+     * Action applied to packet sent to client
+     * with full outbound queue.
+     * <p>
+     * Default is <code>SlowConsumerPolicy.DROP_OLDEST</code>
+     *
+     * @param slowConsumerPolicy - policy
+     *
+     * @see SocketIOServer#getMetrics()
+     */
+    public void setSlowConsumerPolicy(SlowConsumerPolicy slowConsumerPolicy) {
+        this.slowConsumerPolicy = slowConsumerPolicy;
+    }
+    public SlowConsumerPolicy getSlowConsumerPolicy() {
+        return slowConsumerPolicy;
+    }
+
+    /**
+     * Maximum amount of packets sent in one polling response.
+     * <p>
+     * Default is <code>50</code>, <code>0</code> - unlimited
+     *
+     * @param pollingMaxPackets - packets amount
+     */
+    public void setPollingMaxPackets(int pollingMaxPackets) {
+        this.pollingMaxPackets = pollingMaxPackets;
+    }
+    public int getPollingMaxPackets() {
+        return pollingMaxPackets;
+    }
+
+    /**
+     * Polling response size after which no more packets are added to it.
+     * At least one packet is sent regardless of its size.
+     * <p>
+     * Default is <code>0</code> - unlimited
+     *
+     * @param pollingMaxBytes - size in bytes
+     */
+    public void setPollingMaxBytes(int pollingMaxBytes) {
+        this.pollingMaxBytes = pollingMaxBytes;
+    }
+    public int getPollingMaxBytes() {
+        return pollingMaxBytes;
+    }
+
+    /**
+     * Time to wait for more packets before polling response is sent.
+     * Reduces amount of polling requests for clients receiving
+     * packets in bursts at cost of added latency.
+     * <p>
+     * Default is <code>0</code> - response is sent immediately
+     *
+     * @param pollingLinger - time in milliseconds
+     */
+    public void setPollingLinger(int pollingLinger) {
+        this.pollingLinger = pollingLinger;
+    }
+    public int getPollingLinger() {
+        return pollingLinger;
+    }
+
+    /**
+     * Keep polling connections open between requests
+     * if client supports HTTP persistent connections.
+     * Otherwise connection is closed after each polling response.
+     * <p>
+     * Default is <code>true</code>
+     *
+     * @param httpKeepAlive - <code>true</code> to reuse polling connections
+     */
+    public void setHttpKeepAlive(boolean httpKeepAlive) {
+        this.httpKeepAlive = httpKeepAlive;
+    }
+    public boolean isHttpKeepAlive() {
+        return httpKeepAlive;
+    }
+
+    /**
+     * Limits of new sessions handshakes rate and concurrency.
+     *
+     * @param handshakeLimitConfig - limits config
+     *
+     * @see HandshakeLimitConfig
+     */
+    public void setHandshakeLimitConfig(HandshakeLimitConfig handshakeLimitConfig) {
+        this.handshakeLimitConfig = handshakeLimitConfig;
+    }
+    public HandshakeLimitConfig getHandshakeLimitConfig() {
+        return handshakeLimitConfig;
+    }
+
+    /**
+     * Room registry factory. Creates room membership index for each namespace.
+     * <p>
+     * Default is <code>MapRoomRegistryFactory</code>.
+     * <code>CompactRoomRegistryFactory</code> uses less memory per membership,
+     * but room tables never shrink once room has been large.
+     *
+     * @param roomRegistryFactory - room registry factory
+     *
+     * @see com.corundumstudio.socketio.namespace.MapRoomRegistryFactory
+     * @see com.corundumstudio.socketio.namespace.CompactRoomRegistryFactory
+     */
+    public void setRoomRegistryFactory(RoomRegistryFactory roomRegistryFactory) {
+        this.roomRegistryFactory = roomRegistryFactory;
+    }
+    public RoomRegistryFactory getRoomRegistryFactory() {
+        return roomRegistryFactory;
+    }
+
 }
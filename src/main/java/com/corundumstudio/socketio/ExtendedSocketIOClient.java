@@ -0,0 +1,54 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio;
+
+import io.netty.util.concurrent.Future;
+
+/**
+ * Client operations added on top of {@link SocketIOClient}.
+ * Declared separately, so existing {@link SocketIOClient} implementations
+ * stay compatible. All clients created by server implement it.
+ *
+ */
+public interface ExtendedSocketIOClient extends SocketIOClient {
+
+    /**
+     * Send event conflated by key. If previous event with the same key
+     * wasn't written to transport yet, it's replaced by this one in place.
+     * Only the latest event is delivered, so bandwidth is bounded by flush rate.
+     *
+     * @param key - conflation key, for example event name
+     * @param name - event name
+     * @param data - event data
+     */
+    void sendEventConflated(String key, String name, Object ... data);
+
+    /**
+     * Send event with ack. Returned future is completed
+     * by ack result directly in thread which has received the ack.
+     * Future fails with {@link java.util.concurrent.TimeoutException}
+     * if ack timeout is elapsed or client has disconnected.
+     *
+     * @param <T> - ack result type
+     * @param name - event name
+     * @param resultClass - ack result class
+     * @param timeout - ack timeout in seconds, <code>-1</code> to wait until disconnection
+     * @param data - event data
+     * @return ack result future
+     */
+    <T> Future<T> sendEventAsync(String name, Class<T> resultClass, int timeout, Object ... data);
+
+}
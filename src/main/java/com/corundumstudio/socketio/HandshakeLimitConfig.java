@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio;
+
+/**
+ * Admission control of new sessions.
+ * Rejected handshakes get <code>503 Service Unavailable</code> response
+ * with <code>Retry-After</code> header. All limits are disabled by default.
+ *
+ * @see ServerMetrics#getShedHandshakes()
+ */
+public class HandshakeLimitConfig {
+
+    private int rate = 0;
+
+    private int burst = 0;
+
+    private int addressRate = 0;
+
+    private int addressBurst = 0;
+
+    private int maxConcurrent = 0;
+
+    private int retryAfter = 1;
+
+    public int getRate() {
+        return rate;
+    }
+    /**
+     * Handshakes per second allowed by this node.
+     * <p>
+     * Default is <code>0</code> - unlimited
+     *
+     * @param rate - handshakes per second
+     */
+    public void setRate(int rate) {
+        this.rate = rate;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+    /**
+     * Handshakes allowed at once above the rate.
+     * <p>
+     * Default is <code>0</code> - the same as rate
+     *
+     * @param burst - handshakes amount
+     */
+    public void setBurst(int burst) {
+        this.burst = burst;
+    }
+
+    public int getAddressRate() {
+        return addressRate;
+    }
+    /**
+     * Handshakes per second allowed from single remote address.
+     * <p>
+     * Default is <code>0</code> - unlimited
+     *
+     * @param addressRate - handshakes per second
+     */
+    public void setAddressRate(int addressRate) {
+        this.addressRate = addressRate;
+    }
+
+    public int getAddressBurst() {
+        return addressBurst;
+    }
+    /**
+     * Handshakes allowed at once above the rate from single remote address.
+     * <p>
+     * Default is <code>0</code> - the same as address rate
+     *
+     * @param addressBurst - handshakes amount
+     */
+    public void setAddressBurst(int addressBurst) {
+        this.addressBurst = addressBurst;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+    /**
+     * Max amount of handshakes in authorization at the same time.
+     * <p>
+     * Default is <code>0</code> - unlimited
+     *
+     * @param maxConcurrent - handshakes amount
+     */
+    public void setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public int getRetryAfter() {
+        return retryAfter;
+    }
+    /**
+     * Value of <code>Retry-After</code> header of rejected handshake.
+     * <p>
+     * Default is <code>1</code>
+     *
+     * @param retryAfter - time in seconds
+     */
+    public void setRetryAfter(int retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server counters.
+ * Fully thread-safe.
+ *
+ */
+public class ServerMetrics {
+
+    private final AtomicLong droppedPackets = new AtomicLong();
+    private final AtomicLong coalescedPackets = new AtomicLong();
+    private final AtomicLong slowConsumerDisconnects = new AtomicLong();
+    private final AtomicLong pollingBatches = new AtomicLong();
+    private final AtomicLong pollingBatchPackets = new AtomicLong();
+    private final AtomicLong pollingBatchBytes = new AtomicLong();
+    private final AtomicLong admittedHandshakes = new AtomicLong();
+    private final AtomicLong shedHandshakes = new AtomicLong();
+    private final AtomicLong authorizationCacheHits = new AtomicLong();
+    private final AtomicLong authorizationCacheMisses = new AtomicLong();
+
+    public void onPacketDropped() {
+        droppedPackets.incrementAndGet();
+    }
+
+    public void onPacketCoalesced() {
+        coalescedPackets.incrementAndGet();
+    }
+
+    public void onSlowConsumerDisconnect() {
+        slowConsumerDisconnects.incrementAndGet();
+    }
+
+    public void onPollingBatch(int packets, int bytes) {
+        pollingBatches.incrementAndGet();
+        pollingBatchPackets.addAndGet(packets);
+        pollingBatchBytes.addAndGet(bytes);
+    }
+
+    public void onHandshakeAdmitted() {
+        admittedHandshakes.incrementAndGet();
+    }
+
+    public void onHandshakeShed() {
+        shedHandshakes.incrementAndGet();
+    }
+
+    public void onAuthorizationCacheHit() {
+        authorizationCacheHits.incrementAndGet();
+    }
+
+    public void onAuthorizationCacheMiss() {
+        authorizationCacheMisses.incrementAndGet();
+    }
+
+    /**
+     * @return amount of packets dropped due to outbound queue limits
+     */
+    public long getDroppedPackets() {
+        return droppedPackets.get();
+    }
+
+    /**
+     * @return amount of queued packets replaced by newer packet of the same event
+     */
+    public long getCoalescedPackets() {
+        return coalescedPackets.get();
+    }
+
+    /**
+     * @return amount of clients disconnected due to outbound queue limits
+     */
+    public long getSlowConsumerDisconnects() {
+        return slowConsumerDisconnects.get();
+    }
+
+    /**
+     * @return amount of polling responses with packets
+     */
+    public long getPollingBatches() {
+        return pollingBatches.get();
+    }
+
+    /**
+     * @return total amount of packets sent in polling responses
+     */
+    public long getPollingBatchPackets() {
+        return pollingBatchPackets.get();
+    }
+
+    /**
+     * @return total size of polling responses content in bytes
+     */
+    public long getPollingBatchBytes() {
+        return pollingBatchBytes.get();
+    }
+
+    /**
+     * @return amount of handshakes passed admission control
+     */
+    public long getAdmittedHandshakes() {
+        return admittedHandshakes.get();
+    }
+
+    /**
+     * @return amount of handshakes rejected by admission control
+     */
+    public long getShedHandshakes() {
+        return shedHandshakes.get();
+    }
+
+    /**
+     * @return amount of handshakes authorized by cached result
+     */
+    public long getAuthorizationCacheHits() {
+        return authorizationCacheHits.get();
+    }
+
+    /**
+     * @return amount of cacheable handshakes without cached result
+     */
+    public long getAuthorizationCacheMisses() {
+        return authorizationCacheMisses.get();
+    }
+
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio;
+
+/**
+ * Action applied to a packet sent to client
+ * whose outbound queue has reached its limits.
+ * <p>
+ * Only event packets without ack are dropped or replaced,
+ * other packets are queued beyond the limits.
+ *
+ * @see Configuration#setMaxOutboundPackets(int)
+ * @see Configuration#setMaxOutboundBytes(long)
+ */
+public enum SlowConsumerPolicy {
+
+    /**
+     * Drop the oldest queued packets to fit new one.
+     * New packet is dropped if there is nothing to drop.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Drop the new packet
+     */
+    DROP_NEWEST,
+
+    /**
+     * Replace queued event packet with the same name and namespace
+     * by the new one in place. Oldest packets are dropped if there is no such event.
+     */
+    COALESCE,
+
+    /**
+     * Disconnect client
+     */
+    DISCONNECT
+
+}
@@ -37,6 +37,20 @@ public class SocketConfig {
 
     private int acceptBackLog = 1024;
 
+    private int writeBufferLowWaterMark = -1;
+
+    private int writeBufferHighWaterMark = -1;
+
+    private boolean reusePort = false;
+
+    private int tcpFastOpen = 0;
+
+    private boolean tcpQuickAck = false;
+
+    private boolean epollEdgeTriggered = true;
+
+    private int acceptors = 1;
+
     public boolean isTcpNoDelay() {
         return tcpNoDelay;
     }
@@ -86,4 +100,96 @@ public class SocketConfig {
         this.acceptBackLog = acceptBackLog;
     }
 
+    public int getWriteBufferLowWaterMark() {
+        return writeBufferLowWaterMark;
+    }
+    /**
+     * Client channel becomes writable again when its outbound buffer
+     * size drops below this value.
+     *
+     * @param writeBufferLowWaterMark - size in bytes, <code>-1</code> - Netty default
+     */
+    public void setWriteBufferLowWaterMark(int writeBufferLowWaterMark) {
+        this.writeBufferLowWaterMark = writeBufferLowWaterMark;
+    }
+
+    public int getWriteBufferHighWaterMark() {
+        return writeBufferHighWaterMark;
+    }
+    /**
+     * Client channel becomes unwritable when its outbound buffer
+     * size exceeds this value. Packets are kept in client queue meanwhile.
+     *
+     * @param writeBufferHighWaterMark - size in bytes, <code>-1</code> - Netty default
+     */
+    public void setWriteBufferHighWaterMark(int writeBufferHighWaterMark) {
+        this.writeBufferHighWaterMark = writeBufferHighWaterMark;
+    }
+
+    public boolean isReusePort() {
+        return reusePort;
+    }
+    /**
+     * Allows to bind multiple server channels to the same port.
+     * Native transport only.
+     *
+     * @param reusePort - <code>true</code> to set SO_REUSEPORT
+     */
+    public void setReusePort(boolean reusePort) {
+        this.reusePort = reusePort;
+    }
+
+    public int getTcpFastOpen() {
+        return tcpFastOpen;
+    }
+    /**
+     * Queue length of pending TCP Fast Open requests.
+     * Native transport only.
+     *
+     * @param tcpFastOpen - queue length, <code>0</code> - disabled
+     */
+    public void setTcpFastOpen(int tcpFastOpen) {
+        this.tcpFastOpen = tcpFastOpen;
+    }
+
+    public boolean isTcpQuickAck() {
+        return tcpQuickAck;
+    }
+    /**
+     * Native transport only.
+     *
+     * @param tcpQuickAck - <code>true</code> to set TCP_QUICKACK on client channels
+     */
+    public void setTcpQuickAck(boolean tcpQuickAck) {
+        this.tcpQuickAck = tcpQuickAck;
+    }
+
+    public boolean isEpollEdgeTriggered() {
+        return epollEdgeTriggered;
+    }
+    /**
+     * Epoll transport only.
+     *
+     * @param epollEdgeTriggered - <code>true</code> for edge-triggered mode,
+     *                             <code>false</code> for level-triggered mode
+     */
+    public void setEpollEdgeTriggered(boolean epollEdgeTriggered) {
+        this.epollEdgeTriggered = epollEdgeTriggered;
+    }
+
+    public int getAcceptors() {
+        return acceptors;
+    }
+    /**
+     * Amount of server channels bound to the same port with SO_REUSEPORT.
+     * Each channel has own accept thread, so kernel spreads
+     * new connections between them. Epoll transport only.
+     * Boss threads amount is set to the same value if more than one acceptor used.
+     *
+     * @param acceptors - server channels amount
+     */
+    public void setAcceptors(int acceptors) {
+        this.acceptors = acceptors;
+    }
+
 }
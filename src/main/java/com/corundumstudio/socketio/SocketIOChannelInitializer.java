@@ -35,6 +35,7 @@ import com.corundumstudio.socketio.protocol.PacketDecoder;
 import com.corundumstudio.socketio.protocol.PacketEncoder;
 import com.corundumstudio.socketio.scheduler.CancelableScheduler;
 import com.corundumstudio.socketio.scheduler.HashedWheelTimeoutScheduler;
+import com.corundumstudio.socketio.scheduler.ShardedTimeoutScheduler;
 import com.corundumstudio.socketio.store.StoreFactory;
 import com.corundumstudio.socketio.store.pubsub.DisconnectMessage;
 import com.corundumstudio.socketio.store.pubsub.PubSubType;
@@ -51,6 +52,7 @@ import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.handler.codec.http.HttpResponseEncoder;
 import io.netty.handler.codec.http.websocketx.extensions.compression.WebSocketServerCompressionHandler;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.ssl.SslHandler;
 
 public class SocketIOChannelInitializer extends ChannelInitializer<Channel> implements DisconnectableHub {
@@ -67,6 +69,7 @@ public class SocketIOChannelInitializer extends ChannelInitializer<Channel> impl
     public static final String HTTP_AGGREGATOR = "httpAggregator";
     public static final String HTTP_REQUEST_DECODER = "httpDecoder";
     public static final String SSL_HANDLER = "ssl";
+    public static final String FLUSH_CONSOLIDATION = "flushConsolidation";
 
     public static final String RESOURCE_HANDLER = "resourceHandler";
     public static final String HTTP_REQUEST_HANDLER = "httpRequestHandler";
@@ -77,6 +80,7 @@ public class SocketIOChannelInitializer extends ChannelInitializer<Channel> impl
     private AckManager ackManager;
 
     private ClientsBox clientsBox = new ClientsBox();
+    private final ServerMetrics metrics = new ServerMetrics();
     private AuthorizeHandler authorizeHandler;
     private HttpRequestHandler httpRequestHandler;
     private PollingTransport xhrPollingTransport;
@@ -85,7 +89,8 @@ public class SocketIOChannelInitializer extends ChannelInitializer<Channel> impl
     private EncoderHandler encoderHandler;
     private WrongUrlHandler wrongUrlHandler;
 
-    private CancelableScheduler scheduler = new HashedWheelTimeoutScheduler();
+    private CancelableScheduler scheduler;
+    private PingTimeoutSweeper pingTimeoutSweeper;
 
     private InPacketHandler packetHandler;
     private SSLContext sslContext;
@@ -99,11 +104,16 @@ public class SocketIOChannelInitializer extends ChannelInitializer<Channel> impl
     public void start(Configuration configuration, NamespacesHub namespacesHub, HttpNamespace httpNamespace) {
         this.configuration = configuration;
 
+        if (configuration.getSchedulerShards() > 1) {
+            scheduler = new ShardedTimeoutScheduler(configuration.getSchedulerShards());
+        } else {
+            scheduler = new HashedWheelTimeoutScheduler();
+        }
         ackManager = new AckManager(scheduler);
 
         JsonSupport jsonSupport = configuration.getJsonSupport();
         PacketEncoder encoder = new PacketEncoder(configuration, jsonSupport);
-        PacketDecoder decoder = new PacketDecoder(jsonSupport, ackManager);
+        PacketDecoder decoder = new PacketDecoder(jsonSupport, ackManager, namespacesHub);
 
         String connectPath = configuration.getContext() + "/";
 
@@ -116,11 +126,15 @@ public class SocketIOChannelInitializer extends ChannelInitializer<Channel> impl
             }
         }
 
+        if (configuration.getPingTimeoutCheckInterval() > 0) {
+            pingTimeoutSweeper = new PingTimeoutSweeper(clientsBox, configuration);
+        }
+
         StoreFactory factory = configuration.getStoreFactory();
-        authorizeHandler = new AuthorizeHandler(connectPath, scheduler, configuration, namespacesHub, httpNamespace, factory, this, ackManager, clientsBox);
+        authorizeHandler = new AuthorizeHandler(connectPath, scheduler, configuration, namespacesHub, httpNamespace, factory, this, ackManager, clientsBox, metrics, pingTimeoutSweeper);
         httpRequestHandler = new HttpRequestHandler(httpNamespace);
         factory.init(namespacesHub, authorizeHandler, jsonSupport);
-        xhrPollingTransport = new PollingTransport(connectPath, decoder, authorizeHandler, clientsBox);
+        xhrPollingTransport = new PollingTransport(connectPath, decoder, authorizeHandler, clientsBox, configuration);
         webSocketTransport = new WebSocketTransport(connectPath, isSsl, authorizeHandler, configuration, scheduler, clientsBox);
 
         PacketListener packetListener = new PacketListener(ackManager, namespacesHub, xhrPollingTransport, scheduler);
@@ -129,7 +143,7 @@ public class SocketIOChannelInitializer extends ChannelInitializer<Channel> impl
         packetHandler = new InPacketHandler(packetListener, decoder, namespacesHub, configuration.getExceptionListener());
 
         try {
-            encoderHandler = new EncoderHandler(configuration, encoder);
+            encoderHandler = new EncoderHandler(configuration, encoder, metrics);
         } catch (Exception e) {
             throw new IllegalStateException(e);
         }
@@ -163,6 +177,9 @@ public class SocketIOChannelInitializer extends ChannelInitializer<Channel> impl
      * @param pipeline - channel pipeline
      */
     protected void addSocketioHandlers(ChannelPipeline pipeline) {
+        if (configuration.getFlushConsolidationLimit() > 0) {
+            pipeline.addLast(FLUSH_CONSOLIDATION, new FlushConsolidationHandler(configuration.getFlushConsolidationLimit(), true));
+        }
         pipeline.addLast(HTTP_REQUEST_DECODER, new HttpRequestDecoder());
         pipeline.addLast(HTTP_AGGREGATOR, new HttpObjectAggregator(configuration.getMaxHttpContentLength()) {
             @Override
@@ -227,9 +244,16 @@ public class SocketIOChannelInitializer extends ChannelInitializer<Channel> impl
         log.debug("Client with sessionId: {} disconnected", client.getSessionId());
     }
 
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
     public void stop() {
         StoreFactory factory = configuration.getStoreFactory();
         factory.shutdown();
+        if (pingTimeoutSweeper != null) {
+            pingTimeoutSweeper.stop();
+        }
         scheduler.shutdown();
     }
 
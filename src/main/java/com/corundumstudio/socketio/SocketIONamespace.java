@@ -17,6 +17,7 @@ package com.corundumstudio.socketio;
 
 import java.util.Collection;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 
 import com.corundumstudio.socketio.listener.ClientListeners;
 
@@ -47,4 +48,27 @@ public interface SocketIONamespace extends ClientListeners {
      */
     SocketIOClient getClient(UUID uuid);
 
+    /**
+     * Executor for listeners of this namespace.
+     * Overrides {@link Configuration#setListenerExecutor(Executor)}.
+     * Listeners of the same client are executed in order
+     * unless event has own executor.
+     *
+     * @param executor - listeners executor, <code>null</code> to execute them in Netty I/O thread
+     */
+    void setListenerExecutor(Executor executor);
+
+    /**
+     * Executor for listeners of specified event.
+     * Listeners of the same client are executed in order
+     * only within the same executor. Events of one client handled
+     * by different executors may run concurrently and out of order,
+     * and disconnect listeners may run before earlier events
+     * of this executor are handled.
+     *
+     * @param eventName - event name
+     * @param executor - event listeners executor, <code>null</code> to use namespace executor
+     */
+    void setEventExecutor(String eventName, Executor executor);
+
 }
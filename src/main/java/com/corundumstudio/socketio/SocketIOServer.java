@@ -18,20 +18,31 @@ package com.corundumstudio.socketio;
 import com.corundumstudio.socketio.listener.*;
 import com.corundumstudio.socketio.namespace.HttpNamespace;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.FixedRecvByteBufAllocator;
 import io.netty.channel.ServerChannel;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
 import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
 import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.PromiseCombiner;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
 import org.slf4j.Logger;
@@ -101,7 +112,9 @@ public class SocketIOServer implements ClientListeners, HttpListeners {
     }
 
     public BroadcastOperations getBroadcastOperations() {
-        return new BroadcastOperations(getAllClients(), configCopy.getStoreFactory());
+        Namespace namespace = namespacesHub.get(Namespace.DEFAULT_NAME);
+        return new BroadcastOperations(namespace.getAllClients(), configCopy.getStoreFactory(),
+                                        Collections.singleton(namespace), null);
     }
 
     /**
@@ -113,7 +126,7 @@ public class SocketIOServer implements ClientListeners, HttpListeners {
      */
     public BroadcastOperations getRoomOperations(String room) {
         Iterable<SocketIOClient> clients = namespacesHub.getRoomClients(room);
-        return new BroadcastOperations(clients, configCopy.getStoreFactory());
+        return new BroadcastOperations(clients, configCopy.getStoreFactory(), namespacesHub.getAllNamespaces(), room);
     }
 
     /**
@@ -135,7 +148,7 @@ public class SocketIOServer implements ClientListeners, HttpListeners {
         pipelineFactory.start(configCopy, namespacesHub, httpNamespace);
 
         Class<? extends ServerChannel> channelClass = NioServerSocketChannel.class;
-        if (configCopy.isUseLinuxNativeEpoll()) {
+        if (isNativeEpoll()) {
             channelClass = EpollServerSocketChannel.class;
         }
 
@@ -150,7 +163,39 @@ public class SocketIOServer implements ClientListeners, HttpListeners {
             addr = new InetSocketAddress(configCopy.getHostname(), configCopy.getPort());
         }
 
-        return b.bind(addr).addListener(new FutureListener<Void>() {
+        int acceptors = configCopy.getSocketConfig().getAcceptors();
+        Future<Void> bindFuture;
+        if (acceptors > 1 && isNativeEpoll()) {
+            PromiseCombiner combiner = new PromiseCombiner(ImmediateEventExecutor.INSTANCE);
+            final List<ChannelFuture> bindFutures = new ArrayList<ChannelFuture>(acceptors);
+            for (int i = 0; i < acceptors; i++) {
+                // each server channel is registered in own boss event loop
+                ChannelFuture future = b.bind(addr);
+                bindFutures.add(future);
+                combiner.add(future);
+            }
+            Promise<Void> promise = ImmediateEventExecutor.INSTANCE.newPromise();
+            promise.addListener(new FutureListener<Void>() {
+                @Override
+                public void operationComplete(Future<Void> future) throws Exception {
+                    if (!future.isSuccess()) {
+                        // don't leave part of acceptors listening
+                        for (ChannelFuture channelFuture : bindFutures) {
+                            channelFuture.channel().close();
+                        }
+                    }
+                }
+            });
+            combiner.finish(promise);
+            bindFuture = promise;
+        } else {
+            if (acceptors > 1) {
+                log.warn("Multiple acceptors require epoll transport, single acceptor is used");
+            }
+            bindFuture = b.bind(addr);
+        }
+
+        return bindFuture.addListener(new FutureListener<Void>() {
             @Override
             public void operationComplete(Future<Void> future) throws Exception {
                 if (future.isSuccess()) {
@@ -175,13 +220,70 @@ public class SocketIOServer implements ClientListeners, HttpListeners {
         bootstrap.childOption(ChannelOption.SO_KEEPALIVE, config.isTcpKeepAlive());
         bootstrap.childOption(ChannelOption.SO_LINGER, config.getSoLinger());
 
+        if (config.getWriteBufferHighWaterMark() != -1 || config.getWriteBufferLowWaterMark() != -1) {
+            WriteBufferWaterMark defaultMark = WriteBufferWaterMark.DEFAULT;
+            int low = config.getWriteBufferLowWaterMark() != -1 ? config.getWriteBufferLowWaterMark() : defaultMark.low();
+            int high = config.getWriteBufferHighWaterMark() != -1 ? config.getWriteBufferHighWaterMark() : defaultMark.high();
+            bootstrap.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(low, high));
+        }
+
         bootstrap.option(ChannelOption.SO_REUSEADDR, config.isReuseAddress());
         bootstrap.option(ChannelOption.SO_BACKLOG, config.getAcceptBackLog());
+
+        if (isNativeEpoll()) {
+            applyEpollOptions(bootstrap, config);
+        } else if (config.isReusePort() || config.getTcpFastOpen() > 0 || config.isTcpQuickAck()) {
+            log.warn("Native socket options are ignored by NIO transport");
+        }
     }
 
-    protected void initGroups() {
+    private void applyEpollOptions(ServerBootstrap bootstrap, SocketConfig config) {
+        EpollMode mode = EpollMode.LEVEL_TRIGGERED;
+        if (config.isEpollEdgeTriggered()) {
+            mode = EpollMode.EDGE_TRIGGERED;
+        }
+        bootstrap.option(EpollChannelOption.EPOLL_MODE, mode);
+        bootstrap.childOption(EpollChannelOption.EPOLL_MODE, mode);
+
+        if (config.isReusePort() || config.getAcceptors() > 1) {
+            bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+        }
+        if (config.getTcpFastOpen() > 0) {
+            bootstrap.option(EpollChannelOption.TCP_FASTOPEN, config.getTcpFastOpen());
+        }
+        if (config.isTcpQuickAck()) {
+            bootstrap.childOption(EpollChannelOption.TCP_QUICKACK, true);
+        }
+    }
+
+    private boolean isNativeEpoll() {
+        return bossGroup instanceof EpollEventLoopGroup;
+    }
+
+    private boolean useNativeEpoll() {
+        ChannelTransport transport = configCopy.getChannelTransport();
         if (configCopy.isUseLinuxNativeEpoll()) {
-            bossGroup = new EpollEventLoopGroup(configCopy.getBossThreads());
+            transport = ChannelTransport.EPOLL;
+        }
+        if (transport == ChannelTransport.NIO) {
+            return false;
+        }
+        if (Epoll.isAvailable()) {
+            return true;
+        }
+        if (transport == ChannelTransport.EPOLL) {
+            log.warn("Epoll transport isn't available, NIO transport is used instead", Epoll.unavailabilityCause());
+        }
+        return false;
+    }
+
+    protected void initGroups() {
+        if (useNativeEpoll()) {
+            int bossThreads = configCopy.getBossThreads();
+            if (configCopy.getSocketConfig().getAcceptors() > 1) {
+                bossThreads = configCopy.getSocketConfig().getAcceptors();
+            }
+            bossGroup = new EpollEventLoopGroup(bossThreads);
             workerGroup = new EpollEventLoopGroup(configCopy.getWorkerThreads());
         } else {
             bossGroup = new NioEventLoopGroup(configCopy.getBossThreads());
@@ -223,6 +325,13 @@ public class SocketIOServer implements ClientListeners, HttpListeners {
         return configuration;
     }
 
+    /**
+     * @return server counters
+     */
+    public ServerMetrics getMetrics() {
+        return pipelineFactory.getMetrics();
+    }
+
     @Override
     public void addMultiTypeEventListener(String eventName, MultiTypeEventListener listener, Class<?>... eventClass) {
         mainNamespace.addMultiTypeEventListener(eventName, listener, eventClass);
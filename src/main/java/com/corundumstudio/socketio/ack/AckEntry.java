@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.ack;
+
+import io.netty.util.collection.LongObjectHashMap;
+import io.netty.util.collection.LongObjectMap.PrimitiveEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.corundumstudio.socketio.AckCallback;
+
+/**
+ * Ack callbacks of single client session indexed by ack id.
+ * Callback timeouts are stored along with callbacks and
+ * expired in batches by single scheduled check of {@link AckManager}.
+ *
+ */
+public class AckEntry {
+
+    static final long NO_TIMEOUT = Long.MAX_VALUE;
+
+    static class PendingAck {
+
+        final AckCallback<?> callback;
+        final long deadline;
+
+        PendingAck(AckCallback<?> callback, long deadline) {
+            this.callback = callback;
+            this.deadline = deadline;
+        }
+
+    }
+
+    private final LongObjectHashMap<PendingAck> ackCallbacks = new LongObjectHashMap<PendingAck>();
+    private final AtomicLong ackIndex = new AtomicLong(-1);
+
+    // deadline of scheduled timeouts check
+    private long checkTime = NO_TIMEOUT;
+
+    public void initAckIndex(long index) {
+        ackIndex.compareAndSet(-1, index);
+    }
+
+    synchronized long addAckCallback(AckCallback<?> callback, long deadline) {
+        long index = ackIndex.incrementAndGet();
+        ackCallbacks.put(index, new PendingAck(callback, deadline));
+        return index;
+    }
+
+    synchronized AckCallback<?> getAckCallback(long index) {
+        PendingAck ack = ackCallbacks.get(index);
+        if (ack == null) {
+            return null;
+        }
+        return ack.callback;
+    }
+
+    synchronized AckCallback<?> removeCallback(long index) {
+        PendingAck ack = ackCallbacks.remove(index);
+        if (ack == null) {
+            return null;
+        }
+        return ack.callback;
+    }
+
+    public synchronized int size() {
+        return ackCallbacks.size();
+    }
+
+    /**
+     * Moves timeouts check to <code>deadline</code> if it's earlier
+     * than already scheduled one.
+     *
+     * @return <code>true</code> if check should be rescheduled
+     */
+    synchronized boolean updateCheckTime(long deadline) {
+        if (deadline < checkTime) {
+            checkTime = deadline;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes callbacks with deadline before <code>now</code>
+     *
+     * @return deadline of the next check or <code>NO_TIMEOUT</code>
+     */
+    synchronized long expire(long now, List<AckCallback<?>> expired) {
+        List<Long> indexes = null;
+        long next = NO_TIMEOUT;
+        for (PrimitiveEntry<PendingAck> entry : ackCallbacks.entries()) {
+            PendingAck ack = entry.value();
+            if (ack.deadline == NO_TIMEOUT) {
+                continue;
+            }
+            if (ack.deadline - now <= 0) {
+                if (indexes == null) {
+                    indexes = new ArrayList<Long>();
+                }
+                indexes.add(entry.key());
+                expired.add(ack.callback);
+            } else if (ack.deadline < next) {
+                next = ack.deadline;
+            }
+        }
+        if (indexes != null) {
+            for (long index : indexes) {
+                ackCallbacks.remove(index);
+            }
+        }
+        checkTime = next;
+        return next;
+    }
+
+    synchronized List<AckCallback<?>> removeAll() {
+        List<AckCallback<?>> callbacks = new ArrayList<AckCallback<?>>(ackCallbacks.size());
+        for (PendingAck ack : ackCallbacks.values()) {
+            callbacks.add(ack.callback);
+        }
+        ackCallbacks.clear();
+        checkTime = NO_TIMEOUT;
+        return callbacks;
+    }
+
+}
@@ -21,53 +21,23 @@ import com.corundumstudio.socketio.protocol.Packet;
 import com.corundumstudio.socketio.scheduler.CancelableScheduler;
 import com.corundumstudio.socketio.scheduler.SchedulerKey;
 import com.corundumstudio.socketio.scheduler.SchedulerKey.Type;
-import io.netty.util.internal.PlatformDependent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Ack callbacks are stored in {@link AckEntry} of each client.
+ * Single timeouts check is scheduled per client for the earliest
+ * callback deadline.
+ *
+ */
 public class AckManager implements Disconnectable {
 
-    class AckEntry {
-
-        final Map<Long, AckCallback<?>> ackCallbacks = PlatformDependent.newConcurrentHashMap();
-        final AtomicLong ackIndex = new AtomicLong(-1);
-
-        public long addAckCallback(AckCallback<?> callback) {
-            long index = ackIndex.incrementAndGet();
-            ackCallbacks.put(index, callback);
-            return index;
-        }
-
-        public Set<Long> getAckIndexes() {
-            return ackCallbacks.keySet();
-        }
-
-        public AckCallback<?> getAckCallback(long index) {
-            return ackCallbacks.get(index);
-        }
-
-        public AckCallback<?> removeCallback(long index) {
-            return ackCallbacks.remove(index);
-        }
-
-        public void initAckIndex(long index) {
-            ackIndex.compareAndSet(-1, index);
-        }
-
-    }
-
     private static final Logger log = LoggerFactory.getLogger(AckManager.class);
 
-    private final ConcurrentMap<UUID, AckEntry> ackEntries = PlatformDependent.newConcurrentHashMap();
-
     private final CancelableScheduler scheduler;
 
     public AckManager(CancelableScheduler scheduler) {
@@ -75,29 +45,13 @@ public class AckManager implements Disconnectable {
         this.scheduler = scheduler;
     }
 
-    public void initAckIndex(UUID sessionId, long index) {
-        AckEntry ackEntry = getAckEntry(sessionId);
-        ackEntry.initAckIndex(index);
-    }
-
-    private AckEntry getAckEntry(UUID sessionId) {
-        AckEntry ackEntry = ackEntries.get(sessionId);
-        if (ackEntry == null) {
-            ackEntry = new AckEntry();
-            AckEntry oldAckEntry = ackEntries.putIfAbsent(sessionId, ackEntry);
-            if (oldAckEntry != null) {
-                ackEntry = oldAckEntry;
-            }
-        }
-        return ackEntry;
+    public void initAckIndex(ClientHead client, long index) {
+        client.getAckEntry().initAckIndex(index);
     }
 
     @SuppressWarnings("unchecked")
-    public void onAck(SocketIOClient client, Packet packet) {
-        AckSchedulerKey key = new AckSchedulerKey(Type.ACK_TIMEOUT, client.getSessionId(), packet.getAckId());
-        scheduler.cancel(key);
-
-        AckCallback callback = removeCallback(client.getSessionId(), packet.getAckId());
+    public void onAck(ClientHead client, Packet packet) {
+        AckCallback callback = client.getAckEntry().removeCallback(packet.getAckId());
         if (callback == null) {
             return;
         }
@@ -117,66 +71,75 @@ public class AckManager implements Disconnectable {
         }
     }
 
-    private AckCallback<?> removeCallback(UUID sessionId, long index) {
-        AckEntry ackEntry = ackEntries.get(sessionId);
-        // may be null if client disconnected
-        // before timeout occurs
-        if (ackEntry != null) {
-            return ackEntry.removeCallback(index);
-        }
-        return null;
+    public AckCallback<?> getCallback(ClientHead client, long index) {
+        return client.getAckEntry().getAckCallback(index);
     }
 
-    public AckCallback<?> getCallback(UUID sessionId, long index) {
-        AckEntry ackEntry = getAckEntry(sessionId);
-        return ackEntry.getAckCallback(index);
+    public AckCallback<?> removeCallback(ClientHead client, long index) {
+        return client.getAckEntry().removeCallback(index);
     }
 
-    public long registerAck(UUID sessionId, AckCallback<?> callback) {
-        AckEntry ackEntry = getAckEntry(sessionId);
+    public long registerAck(ClientHead client, AckCallback<?> callback) {
+        AckEntry ackEntry = client.getAckEntry();
         ackEntry.initAckIndex(0);
-        long index = ackEntry.addAckCallback(callback);
+
+        long deadline = AckEntry.NO_TIMEOUT;
+        if (callback.getTimeout() != -1) {
+            deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(callback.getTimeout());
+        }
+        long index = ackEntry.addAckCallback(callback, deadline);
 
         if (log.isDebugEnabled()) {
-            log.debug("AckCallback registered with id: {} for client: {}", index, sessionId);
+            log.debug("AckCallback registered with id: {} for client: {}", index, client.getSessionId());
         }
 
-        scheduleTimeout(index, sessionId, callback);
+        if (deadline != AckEntry.NO_TIMEOUT) {
+            synchronized (ackEntry) {
+                if (ackEntry.updateCheckTime(deadline)) {
+                    scheduleCheck(client, deadline);
+                }
+            }
+        }
 
         return index;
     }
 
-    private void scheduleTimeout(final long index, final UUID sessionId, AckCallback<?> callback) {
-        if (callback.getTimeout() == -1) {
-            return;
-        }
-        SchedulerKey key = new AckSchedulerKey(Type.ACK_TIMEOUT, sessionId, index);
+    private void scheduleCheck(final ClientHead client, long deadline) {
+        SchedulerKey key = new SchedulerKey(Type.ACK_TIMEOUT, client.getSessionId());
+        long delay = Math.max(0, deadline - System.nanoTime());
         scheduler.scheduleCallback(key, new Runnable() {
             @Override
             public void run() {
-                AckCallback<?> cb = removeCallback(sessionId, index);
-                if (cb != null) {
-                    cb.onTimeout();
-                }
+                checkTimeouts(client);
             }
-        }, callback.getTimeout(), TimeUnit.SECONDS);
+        }, delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void checkTimeouts(ClientHead client) {
+        AckEntry ackEntry = client.getAckEntry();
+        List<AckCallback<?>> expired = new ArrayList<AckCallback<?>>();
+        synchronized (ackEntry) {
+            long next = ackEntry.expire(System.nanoTime(), expired);
+            // scheduler keeps the new check under same key,
+            // so it's still cancelled on disconnect
+            if (next != AckEntry.NO_TIMEOUT) {
+                scheduleCheck(client, next);
+            }
+        }
+
+        for (AckCallback<?> callback : expired) {
+            callback.onTimeout();
+        }
     }
 
     @Override
     public void onDisconnect(ClientHead client) {
-        AckEntry e = ackEntries.remove(client.getSessionId());
-        if (e == null) {
-            return;
-        }
+        SchedulerKey key = new SchedulerKey(Type.ACK_TIMEOUT, client.getSessionId());
+        scheduler.cancel(key);
 
-        Set<Long> indexes = e.getAckIndexes();
-        for (Long index : indexes) {
-            AckCallback<?> callback = e.getAckCallback(index);
-            if (callback != null) {
-                callback.onTimeout();
-            }
-            SchedulerKey key = new AckSchedulerKey(Type.ACK_TIMEOUT, client.getSessionId(), index);
-            scheduler.cancel(key);
+        List<AckCallback<?>> callbacks = client.getAckEntry().removeAll();
+        for (AckCallback<?> callback : callbacks) {
+            callback.onTimeout();
         }
     }
 
@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.handler;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.corundumstudio.socketio.AuthorizationCacheConfig;
+import com.corundumstudio.socketio.AuthorizationResponse;
+import com.corundumstudio.socketio.HandshakeData;
+import com.corundumstudio.socketio.HandshakeKeyExtractor;
+
+/**
+ * Bounded LRU cache of authorization results with expiration.
+ *
+ */
+public class AuthorizationCache {
+
+    private static class CachedResponse {
+
+        final AuthorizationResponse response;
+        final long expireTime;
+
+        CachedResponse(AuthorizationResponse response, long expireTime) {
+            this.response = response;
+            this.expireTime = expireTime;
+        }
+
+    }
+
+    private final Map<String, CachedResponse> entries;
+    private final HandshakeKeyExtractor keyExtractor;
+    private final long ttl;
+
+    public AuthorizationCache(AuthorizationCacheConfig config) {
+        this.keyExtractor = config.getKeyExtractor();
+        this.ttl = TimeUnit.MILLISECONDS.toNanos(config.getTtl());
+
+        final int maxSize = config.getMaxSize();
+        this.entries = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return keyExtractor != null;
+    }
+
+    /**
+     * @param data - handshake data
+     * @return cache key or <code>null</code> if result shouldn't be cached
+     */
+    public String getKey(HandshakeData data) {
+        if (keyExtractor == null) {
+            return null;
+        }
+        return keyExtractor.getKey(data);
+    }
+
+    public AuthorizationResponse get(String key) {
+        return get(key, System.nanoTime());
+    }
+
+    synchronized AuthorizationResponse get(String key, long now) {
+        CachedResponse entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (now - entry.expireTime >= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.response;
+    }
+
+    public void put(String key, AuthorizationResponse response) {
+        put(key, response, System.nanoTime());
+    }
+
+    synchronized void put(String key, AuthorizationResponse response, long now) {
+        entries.put(key, new CachedResponse(response, now + ttl));
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+}
@@ -18,6 +18,7 @@ package com.corundumstudio.socketio.handler;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.util.HashMap;
 import java.util.List;
@@ -56,12 +57,32 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
 
 @Sharable
 public class AuthorizeHandler extends ChannelInboundHandlerAdapter implements Disconnectable {
 
     private static final Logger log = LoggerFactory.getLogger(AuthorizeHandler.class);
 
+    private static final AttributeKey<PendingAuthorization> PENDING_AUTHORIZATION = AttributeKey.valueOf("pendingAuthorization");
+
+    // handshake request waiting for AsyncAuthorizationListener result
+    private static class PendingAuthorization {
+
+        final FullHttpRequest req;
+        Future<AuthorizationResponse> future;
+        ScheduledFuture<?> timeout;
+
+        PendingAuthorization(FullHttpRequest req) {
+            this.req = req;
+        }
+
+    }
+
     private final CancelableScheduler disconnectScheduler;
 
     private final String connectPath;
@@ -72,9 +93,13 @@ public class AuthorizeHandler extends ChannelInboundHandlerAdapter implements Di
     private final DisconnectableHub disconnectable;
     private final AckManager ackManager;
     private final ClientsBox clientsBox;
+    private final ServerMetrics metrics;
+    private final HandshakeLimiter handshakeLimiter;
+    private final AuthorizationCache authorizationCache;
+    private final PingTimeoutSweeper pingTimeoutSweeper;
 
     public AuthorizeHandler(String connectPath, CancelableScheduler scheduler, Configuration configuration, NamespacesHub namespacesHub, HttpNamespace httpNamespace, StoreFactory storeFactory,
-                            DisconnectableHub disconnectable, AckManager ackManager, ClientsBox clientsBox) {
+                            DisconnectableHub disconnectable, AckManager ackManager, ClientsBox clientsBox, ServerMetrics metrics, PingTimeoutSweeper pingTimeoutSweeper) {
         super();
         this.connectPath = connectPath;
         this.configuration = configuration;
@@ -85,6 +110,10 @@ public class AuthorizeHandler extends ChannelInboundHandlerAdapter implements Di
         this.disconnectable = disconnectable;
         this.ackManager = ackManager;
         this.clientsBox = clientsBox;
+        this.metrics = metrics;
+        this.pingTimeoutSweeper = pingTimeoutSweeper;
+        this.handshakeLimiter = new HandshakeLimiter(configuration.getHandshakeLimitConfig());
+        this.authorizationCache = new AuthorizationCache(configuration.getAuthorizationCacheConfig());
     }
 
     @Override
@@ -120,8 +149,25 @@ public class AuthorizeHandler extends ChannelInboundHandlerAdapter implements Di
             List<String> sid = queryDecoder.parameters().get("sid");
             if (queryDecoder.path().equals(connectPath)
                     && sid == null) {
+                if (!admit(channel)) {
+                    req.release();
+                    return;
+                }
+
                 String origin = req.headers().get(HttpHeaderNames.ORIGIN);
-                if (!authorize(ctx, channel, origin, queryDecoder.parameters(), req)) {
+                if (configuration.getAsyncAuthorizationListener() != null) {
+                    // message is forwarded once authorization is completed
+                    authorizeAsync(ctx, origin, queryDecoder.parameters(), req);
+                    return;
+                }
+
+                boolean authorized;
+                try {
+                    authorized = authorize(ctx, channel, origin, queryDecoder.parameters(), req);
+                } finally {
+                    handshakeLimiter.release();
+                }
+                if (!authorized) {
                     req.release();
                     return;
                 }
@@ -131,26 +177,214 @@ public class AuthorizeHandler extends ChannelInboundHandlerAdapter implements Di
         ctx.fireChannelRead(msg);
     }
 
-    private boolean authorize(ChannelHandlerContext ctx, Channel channel, String origin, Map<String, List<String>> params, FullHttpRequest req)
-            throws IOException {
-        Map<String, List<String>> headers = new HashMap<String, List<String>>(req.headers().names().size());
-        for (String name : req.headers().names()) {
-            List<String> values = req.headers().getAll(name);
-            headers.put(name, values);
+    private boolean admit(Channel channel) {
+        if (!handshakeLimiter.isEnabled()) {
+            return true;
         }
 
-        HandshakeData handshakeData = new HandshakeData(req.headers(), params,
+        InetAddress address = null;
+        if (channel.remoteAddress() instanceof InetSocketAddress) {
+            address = ((InetSocketAddress) channel.remoteAddress()).getAddress();
+        }
+        if (handshakeLimiter.tryAcquire(address)) {
+            metrics.onHandshakeAdmitted();
+            return true;
+        }
+
+        metrics.onHandshakeShed();
+        log.debug("Handshake from {} rejected by admission control", channel.remoteAddress());
+
+        HttpResponse res = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.SERVICE_UNAVAILABLE);
+        res.headers().set(HttpHeaderNames.RETRY_AFTER, configuration.getHandshakeLimitConfig().getRetryAfter());
+        res.headers().set(HttpHeaderNames.CONTENT_LENGTH, 0);
+        channel.writeAndFlush(res).addListener(ChannelFutureListener.CLOSE);
+        return false;
+    }
+
+    private HandshakeData createHandshakeData(Channel channel, String origin, Map<String, List<String>> params, FullHttpRequest req) {
+        return new HandshakeData(req.headers(), params,
                 (InetSocketAddress)channel.remoteAddress(),
                 (InetSocketAddress)channel.localAddress(),
                 req.uri(), origin != null && !origin.equalsIgnoreCase("null"));
+    }
+
+    private boolean authorize(ChannelHandlerContext ctx, Channel channel, String origin, Map<String, List<String>> params, FullHttpRequest req)
+            throws IOException {
+        HandshakeData handshakeData = createHandshakeData(channel, origin, params, req);
+
+        String cacheKey = authorizationCache.getKey(handshakeData);
+        AuthorizationResponse authorizationResponse = getCachedResponse(cacheKey);
+        if (authorizationResponse == null) {
+            try {
+                authorizationResponse = configuration.getAuthorizationListener().isAuthorized(handshakeData);
+            } catch (Exception e) {
+                log.error("AuthorizationListener error", e);
+            }
+            cacheResponse(cacheKey, authorizationResponse);
+        }
+
+        return completeHandshake(channel, origin, params, req, handshakeData, authorizationResponse);
+    }
+
+    private void authorizeAsync(final ChannelHandlerContext ctx, final String origin,
+                                    final Map<String, List<String>> params, final FullHttpRequest req) {
+        final HandshakeData handshakeData = createHandshakeData(ctx.channel(), origin, params, req);
+
+        String key = authorizationCache.getKey(handshakeData);
+        AuthorizationResponse cachedResponse = getCachedResponse(key);
+        Future<AuthorizationResponse> future = null;
+        if (cachedResponse != null) {
+            future = ImmediateEventExecutor.INSTANCE.newSucceededFuture(cachedResponse);
+            key = null;
+        } else {
+            try {
+                future = configuration.getAsyncAuthorizationListener().isAuthorized(handshakeData);
+            } catch (Exception e) {
+                log.error("AsyncAuthorizationListener error", e);
+            }
+        }
+        if (future == null) {
+            future = ImmediateEventExecutor.INSTANCE.newSucceededFuture(null);
+        }
+
+        final String cacheKey = key;
+        final PendingAuthorization pending = new PendingAuthorization(req);
+        pending.future = future;
+        ctx.channel().attr(PENDING_AUTHORIZATION).set(pending);
+        // channel isn't read until handshake is completed
+        ctx.channel().config().setAutoRead(false);
+
+        int timeout = configuration.getAsyncAuthorizationTimeout();
+        if (timeout > 0 && !future.isDone()) {
+            pending.timeout = ctx.executor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    onAsyncAuthorizationTimeout(ctx, origin, params, req, handshakeData);
+                }
+            }, timeout, TimeUnit.MILLISECONDS);
+        }
+
+        future.addListener(new FutureListener<AuthorizationResponse>() {
+            @Override
+            public void operationComplete(final Future<AuthorizationResponse> future) throws Exception {
+                if (ctx.executor().inEventLoop()) {
+                    onAsyncAuthorization(ctx, origin, params, req, handshakeData, cacheKey, future);
+                    return;
+                }
+
+                ctx.executor().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onAsyncAuthorization(ctx, origin, params, req, handshakeData, cacheKey, future);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Removes pending authorization of channel and releases its resources
+     * except request. Invoked only in channel event loop.
+     *
+     * @return pending authorization or <code>null</code> if it's already finished
+     */
+    private PendingAuthorization finishPending(ChannelHandlerContext ctx) {
+        PendingAuthorization pending = ctx.channel().attr(PENDING_AUTHORIZATION).getAndSet(null);
+        if (pending == null) {
+            return null;
+        }
+
+        if (pending.timeout != null) {
+            pending.timeout.cancel(false);
+        }
+        handshakeLimiter.release();
+        ctx.channel().config().setAutoRead(true);
+        return pending;
+    }
+
+    private void onAsyncAuthorization(ChannelHandlerContext ctx, String origin, Map<String, List<String>> params,
+                                        FullHttpRequest req, HandshakeData handshakeData, String cacheKey,
+                                        Future<AuthorizationResponse> future) {
+        if (finishPending(ctx) == null) {
+            // already timed out or channel has been closed
+            return;
+        }
 
         AuthorizationResponse authorizationResponse = null;
+        if (future.isSuccess()) {
+            authorizationResponse = future.getNow();
+            cacheResponse(cacheKey, authorizationResponse);
+        } else {
+            log.error("AsyncAuthorizationListener error", future.cause());
+        }
+        completeAsyncHandshake(ctx, origin, params, req, handshakeData, authorizationResponse);
+    }
+
+    private void onAsyncAuthorizationTimeout(ChannelHandlerContext ctx, String origin, Map<String, List<String>> params,
+                                                FullHttpRequest req, HandshakeData handshakeData) {
+        PendingAuthorization pending = finishPending(ctx);
+        if (pending == null) {
+            return;
+        }
+
+        log.error("AsyncAuthorizationListener timeout for {}", ctx.channel().remoteAddress());
+        pending.future.cancel(false);
+        completeAsyncHandshake(ctx, origin, params, req, handshakeData, null);
+    }
+
+    private void completeAsyncHandshake(ChannelHandlerContext ctx, String origin, Map<String, List<String>> params,
+                                            FullHttpRequest req, HandshakeData handshakeData, AuthorizationResponse authorizationResponse) {
+        boolean authorized = false;
         try {
-            authorizationResponse = configuration.getAuthorizationListener().isAuthorized(handshakeData);
+            if (ctx.channel().isActive()) {
+                authorized = completeHandshake(ctx.channel(), origin, params, req, handshakeData, authorizationResponse);
+            }
         } catch (Exception e) {
-            log.error("AuthorizationListener error", e);
+            ctx.fireExceptionCaught(e);
+        }
+
+        if (authorized) {
+            // forward message to polling or websocket handler to bind channel
+            ctx.fireChannelRead(req);
+        } else {
+            req.release();
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().hasAttr(PENDING_AUTHORIZATION)) {
+            PendingAuthorization pending = finishPending(ctx);
+            if (pending != null) {
+                pending.future.cancel(false);
+                pending.req.release();
+            }
+        }
+        super.channelInactive(ctx);
+    }
+
+    private AuthorizationResponse getCachedResponse(String cacheKey) {
+        if (cacheKey == null) {
+            return null;
         }
 
+        AuthorizationResponse response = authorizationCache.get(cacheKey);
+        if (response != null) {
+            metrics.onAuthorizationCacheHit();
+        } else {
+            metrics.onAuthorizationCacheMiss();
+        }
+        return response;
+    }
+
+    private void cacheResponse(String cacheKey, AuthorizationResponse response) {
+        if (cacheKey != null && response != null) {
+            authorizationCache.put(cacheKey, response);
+        }
+    }
+
+    private boolean completeHandshake(Channel channel, String origin, Map<String, List<String>> params, FullHttpRequest req,
+                                        HandshakeData handshakeData, AuthorizationResponse authorizationResponse) throws IOException {
         if (authorizationResponse == null) {
             authorizationResponse = UnauthorizedResponse.UNAUTHORIZED();
         }
@@ -171,7 +405,7 @@ public class AuthorizeHandler extends ChannelInboundHandlerAdapter implements Di
             }
 
             channel.writeAndFlush(res).addListener(ChannelFutureListener.CLOSE);
-            log.debug("Handshake UNAUTHORIZED, query params: {} headers: {}", params, headers);
+            log.debug("Handshake UNAUTHORIZED, query params: {} headers: {}", params, req.headers());
             return false;
         }
 
@@ -205,9 +439,12 @@ public class AuthorizeHandler extends ChannelInboundHandlerAdapter implements Di
             return false;
         }
 
-        ClientHead client = new ClientHead(sessionId, ackManager, disconnectable, storeFactory, storeData, handshakeData, clientsBox, transport, disconnectScheduler, configuration);
+        ClientHead client = new ClientHead(sessionId, ackManager, disconnectable, storeFactory, storeData, handshakeData, clientsBox, transport, disconnectScheduler, configuration, metrics);
         channel.attr(ClientHead.CLIENT).set(client);
         clientsBox.addClient(client);
+        if (pingTimeoutSweeper != null) {
+            pingTimeoutSweeper.register(client, channel.eventLoop());
+        }
 
         String[] transports = {};
         if (configuration.getTransports().contains(Transport.WEBSOCKET)) {
@@ -221,7 +458,7 @@ public class AuthorizeHandler extends ChannelInboundHandlerAdapter implements Di
         client.send(packet);
 
         client.schedulePingTimeout();
-        log.debug("Handshake authorized for sessionId: {}, query params: {} headers: {}", sessionId, params, headers);
+        log.debug("Handshake authorized for sessionId: {}, query params: {} headers: {}", sessionId, params, req.headers());
         return true;
     }
 
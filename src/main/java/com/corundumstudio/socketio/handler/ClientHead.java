@@ -18,9 +18,13 @@ package com.corundumstudio.socketio.handler;
 import com.corundumstudio.socketio.Configuration;
 import com.corundumstudio.socketio.DisconnectableHub;
 import com.corundumstudio.socketio.HandshakeData;
+import com.corundumstudio.socketio.ServerMetrics;
+import com.corundumstudio.socketio.SlowConsumerPolicy;
 import com.corundumstudio.socketio.Transport;
+import com.corundumstudio.socketio.ack.AckEntry;
 import com.corundumstudio.socketio.ack.AckManager;
 import com.corundumstudio.socketio.messages.OutPacketMessage;
+import com.corundumstudio.socketio.misc.SerialExecutor;
 import com.corundumstudio.socketio.namespace.Namespace;
 import com.corundumstudio.socketio.protocol.Packet;
 import com.corundumstudio.socketio.protocol.PacketType;
@@ -42,6 +46,8 @@ import org.slf4j.LoggerFactory;
 import java.net.SocketAddress;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -52,6 +58,7 @@ public class ClientHead {
     public static final AttributeKey<ClientHead> CLIENT = AttributeKey.<ClientHead>valueOf("client");
 
     private final AtomicBoolean disconnected = new AtomicBoolean();
+    private final AtomicBoolean slowConsumer = new AtomicBoolean();
     private final Map<Namespace, NamespaceClient> namespaceClients = PlatformDependent.newConcurrentHashMap();
     private final Map<Transport, TransportState> channels = new HashMap<Transport, TransportState>(2);
     private final HandshakeData handshakeData;
@@ -60,18 +67,23 @@ public class ClientHead {
     private final Store store;
     private final DisconnectableHub disconnectableHub;
     private final AckManager ackManager;
+    private final AckEntry ackEntry = new AckEntry();
+    private final ConcurrentMap<Executor, SerialExecutor> serialExecutors = PlatformDependent.newConcurrentHashMap();
     private ClientsBox clientsBox;
     private final CancelableScheduler disconnectScheduler;
     private final Configuration configuration;
+    private final ServerMetrics metrics;
 
     private Packet lastBinaryPacket;
 
+    private volatile long lastActivityTime = System.nanoTime();
+
     // TODO use lazy set
     private volatile Transport currentTransport;
 
     public ClientHead(UUID sessionId, AckManager ackManager, DisconnectableHub disconnectable,
             StoreFactory storeFactory, Map<String, Object> storeData, HandshakeData handshakeData, ClientsBox clientsBox, Transport transport, CancelableScheduler disconnectScheduler,
-            Configuration configuration) {
+            Configuration configuration, ServerMetrics metrics) {
         this.sessionId = sessionId;
         this.ackManager = ackManager;
         this.disconnectableHub = disconnectable;
@@ -81,13 +93,23 @@ public class ClientHead {
         this.currentTransport = transport;
         this.disconnectScheduler = disconnectScheduler;
         this.configuration = configuration;
+        this.metrics = metrics;
 
         for(Map.Entry<String, Object> entry : storeData.entrySet()) {
             this.store.set(entry.getKey(), entry.getValue());
         }
 
-        channels.put(Transport.POLLING, new TransportState());
-        channels.put(Transport.WEBSOCKET, new TransportState());
+        channels.put(Transport.POLLING, createTransportState());
+        channels.put(Transport.WEBSOCKET, createTransportState());
+    }
+
+    private TransportState createTransportState() {
+        if (configuration.getMaxOutboundPackets() > 0
+                || configuration.getMaxOutboundBytes() > 0) {
+            return new TransportState(new OutboundPacketQueue(configuration.getMaxOutboundPackets(),
+                    configuration.getMaxOutboundBytes(), configuration.getSlowConsumerPolicy(), metrics));
+        }
+        return new TransportState();
     }
 
     public void bindChannel(Channel channel, Transport transport) {
@@ -108,6 +130,7 @@ public class ClientHead {
         if(channel.equals(state.getChannel())) {
             clientsBox.remove(channel);
             state.update(null);
+            EncoderHandler.cancelLinger(channel);
         }
     }
 
@@ -125,6 +148,12 @@ public class ClientHead {
     }
 
     public void schedulePingTimeout() {
+        if (configuration.getPingTimeoutCheckInterval() > 0) {
+            // checked by PingTimeoutSweeper
+            lastActivityTime = System.nanoTime();
+            return;
+        }
+
         SchedulerKey key = new SchedulerKey(Type.PING_TIMEOUT, sessionId);
         disconnectScheduler.schedule(key, new Runnable() {
             @Override
@@ -138,9 +167,32 @@ public class ClientHead {
         }, configuration.getPingTimeout() + configuration.getPingInterval(), TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * @return time of last inbound activity in {@link System#nanoTime()} units.
+     * Updated only if ping timeout check interval is set.
+     */
+    public long getLastActivityTime() {
+        return lastActivityTime;
+    }
+
+    /**
+     * Queues packet and writes queue to transport channel if it's available.
+     *
+     * @param packet - packet to send
+     * @param transport - transport to send packet through
+     * @return write future or <code>null</code> if packet has been queued
+     *         without write or rejected by slow consumer policy
+     *
+     * @see com.corundumstudio.socketio.Configuration#setSlowConsumerPolicy(SlowConsumerPolicy)
+     */
     public ChannelFuture send(Packet packet, Transport transport) {
         TransportState state = channels.get(transport);
-        state.getPacketsQueue().add(packet);
+        if (!state.getPacketsQueue().offer(packet)) {
+            if (configuration.getSlowConsumerPolicy() == SlowConsumerPolicy.DISCONNECT) {
+                onSlowConsumer(state);
+            }
+            return null;
+        }
 
         Channel channel = state.getChannel();
         if (channel == null
@@ -150,6 +202,30 @@ public class ClientHead {
         return sendPackets(transport, channel);
     }
 
+    private void onSlowConsumer(TransportState state) {
+        if (isConnected() && slowConsumer.compareAndSet(false, true)) {
+            log.debug("{} disconnected due to outbound queue overflow", sessionId);
+            metrics.onSlowConsumerDisconnect();
+            // free space for disconnect packet
+            state.getPacketsQueue().clear();
+            disconnect();
+        }
+    }
+
+    /**
+     * Resumes sending of queued packets,
+     * for example after channel became writable again.
+     *
+     * @param transport - transport to send packets through
+     */
+    public void resumeSending(Transport transport) {
+        TransportState state = channels.get(transport);
+        Channel channel = state.getChannel();
+        if (channel != null && !state.getPacketsQueue().isEmpty()) {
+            sendPackets(transport, channel);
+        }
+    }
+
     private ChannelFuture sendPackets(Transport transport, Channel channel) {
         return channel.writeAndFlush(new OutPacketMessage(this, transport));
     }
@@ -197,6 +273,26 @@ public class ClientHead {
         return handshakeData;
     }
 
+    /**
+     * @param executor - shared executor
+     * @return executor which runs tasks of this client in submission order
+     */
+    public Executor getSerialExecutor(Executor executor) {
+        SerialExecutor serialExecutor = serialExecutors.get(executor);
+        if (serialExecutor == null) {
+            serialExecutor = new SerialExecutor(executor);
+            SerialExecutor oldExecutor = serialExecutors.putIfAbsent(executor, serialExecutor);
+            if (oldExecutor != null) {
+                serialExecutor = oldExecutor;
+            }
+        }
+        return serialExecutor;
+    }
+
+    public AckEntry getAckEntry() {
+        return ackEntry;
+    }
+
     public AckManager getAckManager() {
         return ackManager;
     }
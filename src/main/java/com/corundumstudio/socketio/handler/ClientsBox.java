@@ -18,6 +18,7 @@ package com.corundumstudio.socketio.handler;
 import io.netty.channel.Channel;
 import io.netty.util.internal.PlatformDependent;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.UUID;
 
@@ -50,6 +51,10 @@ public class ClientsBox {
         return uuid2clients.get(sessionId);
     }
 
+    public Collection<ClientHead> getClients() {
+        return uuid2clients.values();
+    }
+
     public void add(Channel channel, ClientHead clientHead) {
         channel2clients.put(channel, clientHead);
     }
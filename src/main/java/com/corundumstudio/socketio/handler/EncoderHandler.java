@@ -23,21 +23,25 @@ import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.TimeUnit;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
 
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.ScheduledFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.corundumstudio.socketio.Configuration;
+import com.corundumstudio.socketio.ServerMetrics;
 import com.corundumstudio.socketio.Transport;
 import com.corundumstudio.socketio.messages.HttpErrorMessage;
 import com.corundumstudio.socketio.messages.HttpMessage;
 import com.corundumstudio.socketio.messages.OutPacketMessage;
 import com.corundumstudio.socketio.messages.XHROptionsMessage;
 import com.corundumstudio.socketio.messages.XHRPostMessage;
+import com.corundumstudio.socketio.protocol.ConflatedPacket;
 import com.corundumstudio.socketio.protocol.Packet;
 import com.corundumstudio.socketio.protocol.PacketEncoder;
 
@@ -76,16 +80,24 @@ public class EncoderHandler extends ChannelOutboundHandlerAdapter {
     public static final AttributeKey<Boolean> B64 = AttributeKey.valueOf("b64");
     public static final AttributeKey<Integer> JSONP_INDEX = AttributeKey.valueOf("jsonpIndex");
     public static final AttributeKey<Boolean> WRITE_ONCE = AttributeKey.valueOf("writeOnce");
+    public static final AttributeKey<Boolean> KEEP_ALIVE = AttributeKey.valueOf("keepAlive");
+    private static final AttributeKey<ScheduledFuture<?>> LINGER = AttributeKey.valueOf("linger");
 
     private static final Logger log = LoggerFactory.getLogger(EncoderHandler.class);
 
     private final PacketEncoder encoder;
+    private final ServerMetrics metrics;
 
     private String version;
     private Configuration configuration;
 
     public EncoderHandler(Configuration configuration, PacketEncoder encoder) throws IOException {
+        this(configuration, encoder, new ServerMetrics());
+    }
+
+    public EncoderHandler(Configuration configuration, PacketEncoder encoder, ServerMetrics metrics) throws IOException {
         this.encoder = encoder;
+        this.metrics = metrics;
         this.configuration = configuration;
 
         if (configuration.isAddVersionHeader()) {
@@ -117,13 +129,15 @@ public class EncoderHandler extends ChannelOutboundHandlerAdapter {
         HttpResponse res = new DefaultHttpResponse(HTTP_1_1, HttpResponseStatus.OK);
 
         res.headers().add(HttpHeaderNames.SET_COOKIE, "io=" + msg.getSessionId())
-                    .add(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE)
+                    .add(HttpHeaderNames.CONNECTION, isKeepAlive(ctx.channel(), res) ? HttpHeaderValues.KEEP_ALIVE : HttpHeaderValues.CLOSE)
                     .add(HttpHeaderNames.ACCESS_CONTROL_ALLOW_HEADERS, HttpHeaderNames.CONTENT_TYPE);
 
         String origin = ctx.channel().attr(ORIGIN).get();
         addOriginHeaders(origin, res);
 
         ByteBuf out = encoder.allocateBuffer(ctx.alloc());
+        // empty body has to be delimited on persistent connection
+        HttpUtil.setContentLength(res, out.readableBytes());
         sendMessage(msg, ctx.channel(), out, res, promise);
     }
 
@@ -137,7 +151,7 @@ public class EncoderHandler extends ChannelOutboundHandlerAdapter {
         HttpResponse res = new DefaultHttpResponse(HTTP_1_1, status);
 
         res.headers().add(HttpHeaderNames.CONTENT_TYPE, type)
-                    .add(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+                    .add(HttpHeaderNames.CONNECTION, isKeepAlive(channel, res) ? HttpHeaderValues.KEEP_ALIVE : HttpHeaderValues.CLOSE);
         if (msg.getSessionId() != null) {
             res.headers().add(HttpHeaderNames.SET_COOKIE, "io=" + msg.getSessionId());
         }
@@ -174,7 +188,19 @@ public class EncoderHandler extends ChannelOutboundHandlerAdapter {
             out.release();
         }
 
-        channel.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT, promise).addListener(ChannelFutureListener.CLOSE);
+        ChannelFuture future = channel.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT, promise);
+        if (!isKeepAlive(channel, res)) {
+            future.addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    private boolean isKeepAlive(Channel channel, HttpResponse res) {
+        // connection is closed after error in any case
+        if (!HttpResponseStatus.OK.equals(res.status())) {
+            return false;
+        }
+        Boolean keepAlive = channel.attr(KEEP_ALIVE).get();
+        return keepAlive != null && keepAlive;
     }
     
     private void sendError(HttpErrorMessage errorMsg, ChannelHandlerContext ctx, ChannelPromise promise) throws IOException {
@@ -232,22 +258,26 @@ public class EncoderHandler extends ChannelOutboundHandlerAdapter {
 
         while (true) {
             Queue<Packet> queue = msg.getClientHead().getPacketsQueue(msg.getTransport());
-            Packet packet = queue.poll();
+            // rest of packets stay in client queue until channel becomes writable again
+            Packet packet = null;
+            if (ctx.channel().isWritable()) {
+                packet = ConflatedPacket.poll(queue);
+            }
             if (packet == null) {
                 writeFutureList.setChannelPromise(promise);
                 break;
             }
 
-            final ByteBuf out = encoder.allocateBuffer(ctx.alloc());
-            encoder.encodePacket(packet, out, ctx.alloc(), true);
+            final ByteBuf out = encoder.encodePacket(packet, ctx.alloc());
 
             WebSocketFrame res = new TextWebSocketFrame(out);
             if (log.isTraceEnabled()) {
                 log.trace("Out message: {} sessionId: {}", out.toString(CharsetUtil.UTF_8), msg.getSessionId());
             }
 
+            // frames are flushed once per drain by the OutPacketMessage flush
             if (out.isReadable()) {
-                writeFutureList.add(ctx.channel().writeAndFlush(res));
+                writeFutureList.add(ctx.channel().write(res));
             } else {
                 out.release();
             }
@@ -255,16 +285,63 @@ public class EncoderHandler extends ChannelOutboundHandlerAdapter {
             for (ByteBuf buf : packet.getAttachments()) {
                 ByteBuf outBuf = encoder.allocateBuffer(ctx.alloc());
                 outBuf.writeByte(4);
-                outBuf.writeBytes(buf);
+                outBuf.writeBytes(buf, buf.readerIndex(), buf.readableBytes());
                 if (log.isTraceEnabled()) {
                     log.trace("Out attachment: {} sessionId: {}", ByteBufUtil.hexDump(outBuf), msg.getSessionId());
                 }
-                writeFutureList.add(ctx.channel().writeAndFlush(new BinaryWebSocketFrame(outBuf)));
+                writeFutureList.add(ctx.channel().write(new BinaryWebSocketFrame(outBuf)));
+            }
+        }
+    }
+
+    private void handleHTTP(final OutPacketMessage msg, final ChannelHandlerContext ctx, ChannelPromise promise) throws IOException {
+        Channel channel = ctx.channel();
+        Queue<Packet> queue = msg.getClientHead().getPacketsQueue(msg.getTransport());
+
+        if (!channel.isActive() || queue.isEmpty() || channel.attr(WRITE_ONCE).get() != null) {
+            promise.trySuccess();
+            return;
+        }
+
+        if (configuration.getPollingLinger() > 0) {
+            // handler is invoked in channel event loop only
+            Attribute<ScheduledFuture<?>> linger = channel.attr(LINGER);
+            if (linger.get() == null) {
+                linger.set(ctx.executor().schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        ctx.channel().attr(LINGER).set(null);
+                        try {
+                            writePolling(msg, ctx, ctx.newPromise());
+                        } catch (IOException e) {
+                            ctx.fireExceptionCaught(e);
+                        }
+                    }
+                }, configuration.getPollingLinger(), TimeUnit.MILLISECONDS));
             }
+            // packets are sent by scheduled task
+            promise.trySuccess();
+            return;
+        }
+
+        writePolling(msg, ctx, promise);
+    }
+
+    /**
+     * Cancels pending polling linger of channel. Should be invoked
+     * in channel event loop once session releases channel, so packets of
+     * this session aren't written as response to other session request.
+     *
+     * @param channel - polling channel
+     */
+    public static void cancelLinger(Channel channel) {
+        ScheduledFuture<?> linger = channel.attr(LINGER).getAndSet(null);
+        if (linger != null) {
+            linger.cancel(false);
         }
     }
 
-    private void handleHTTP(OutPacketMessage msg, ChannelHandlerContext ctx, ChannelPromise promise) throws IOException {
+    private void writePolling(OutPacketMessage msg, ChannelHandlerContext ctx, ChannelPromise promise) throws IOException {
         Channel channel = ctx.channel();
         Attribute<Boolean> attr = channel.attr(WRITE_ONCE);
 
@@ -275,18 +352,23 @@ public class EncoderHandler extends ChannelOutboundHandlerAdapter {
             return;
         }
 
+        int maxPackets = configuration.getPollingMaxPackets();
+        int maxBytes = configuration.getPollingMaxBytes();
         ByteBuf out = encoder.allocateBuffer(ctx.alloc());
+        int packets;
         Boolean b64 = ctx.channel().attr(EncoderHandler.B64).get();
         if (b64 != null && b64) {
             Integer jsonpIndex = ctx.channel().attr(EncoderHandler.JSONP_INDEX).get();
-            encoder.encodeJsonP(jsonpIndex, queue, out, ctx.alloc(), 50);
+            packets = encoder.encodeJsonP(jsonpIndex, queue, out, ctx.alloc(), maxPackets, maxBytes);
             String type = "application/javascript";
             if (jsonpIndex == null) {
                 type = "text/plain";
             }
+            metrics.onPollingBatch(packets, out.readableBytes());
             sendMessage(msg, channel, out, type, promise, HttpResponseStatus.OK);
         } else {
-            encoder.encodePackets(queue, out, ctx.alloc(), 50);
+            packets = encoder.encodePackets(queue, out, ctx.alloc(), maxPackets, maxBytes);
+            metrics.onPollingBatch(packets, out.readableBytes());
             sendMessage(msg, channel, out, "application/octet-stream", promise, HttpResponseStatus.OK);
         }
     }
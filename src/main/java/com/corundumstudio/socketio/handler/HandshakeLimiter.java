@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.handler;
+
+import java.net.InetAddress;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.corundumstudio.socketio.HandshakeLimitConfig;
+
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Token bucket and concurrency limiter of handshakes.
+ * Each successful {@link #tryAcquire(InetAddress)} should be followed
+ * by {@link #release()} once handshake is completed.
+ *
+ */
+public class HandshakeLimiter {
+
+    private static final long CLEANUP_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    static class TokenBucket {
+
+        private final double tokensPerNano;
+        private final double capacity;
+
+        private double tokens;
+        private long lastTime;
+
+        TokenBucket(int rate, int burst, long now) {
+            this.tokensPerNano = rate / (double) TimeUnit.SECONDS.toNanos(1);
+            this.capacity = Math.max(burst, 1);
+            this.tokens = capacity;
+            this.lastTime = now;
+        }
+
+        synchronized boolean tryAcquire(long now) {
+            refill(now);
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            long elapsed = now - lastTime;
+            if (elapsed > 0) {
+                tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+                lastTime = now;
+            }
+        }
+
+    }
+
+    private final ConcurrentMap<InetAddress, TokenBucket> addressBuckets = PlatformDependent.newConcurrentHashMap();
+    private final AtomicLong nextCleanup = new AtomicLong();
+    private final AtomicInteger concurrent = new AtomicInteger();
+
+    private final TokenBucket bucket;
+    private final HandshakeLimitConfig config;
+
+    public HandshakeLimiter(HandshakeLimitConfig config) {
+        this(config, System.nanoTime());
+    }
+
+    HandshakeLimiter(HandshakeLimitConfig config, long now) {
+        this.config = config;
+        if (config.getRate() > 0) {
+            int burst = config.getBurst() > 0 ? config.getBurst() : config.getRate();
+            bucket = new TokenBucket(config.getRate(), burst, now);
+        } else {
+            bucket = null;
+        }
+        nextCleanup.set(now + CLEANUP_INTERVAL);
+    }
+
+    public boolean isEnabled() {
+        return bucket != null
+                || config.getAddressRate() > 0
+                    || config.getMaxConcurrent() > 0;
+    }
+
+    public boolean tryAcquire(InetAddress address) {
+        return tryAcquire(address, System.nanoTime());
+    }
+
+    boolean tryAcquire(InetAddress address, long now) {
+        if (config.getMaxConcurrent() > 0
+                && concurrent.incrementAndGet() > config.getMaxConcurrent()) {
+            concurrent.decrementAndGet();
+            return false;
+        }
+
+        if ((address != null && !tryAcquireAddress(address, now))
+                || (bucket != null && !bucket.tryAcquire(now))) {
+            if (config.getMaxConcurrent() > 0) {
+                concurrent.decrementAndGet();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private boolean tryAcquireAddress(InetAddress address, long now) {
+        if (config.getAddressRate() <= 0) {
+            return true;
+        }
+
+        cleanup(now);
+
+        TokenBucket addressBucket = addressBuckets.get(address);
+        if (addressBucket == null) {
+            int burst = config.getAddressBurst() > 0 ? config.getAddressBurst() : config.getAddressRate();
+            addressBucket = new TokenBucket(config.getAddressRate(), burst, now);
+            TokenBucket oldBucket = addressBuckets.putIfAbsent(address, addressBucket);
+            if (oldBucket != null) {
+                addressBucket = oldBucket;
+            }
+        }
+        return addressBucket.tryAcquire(now);
+    }
+
+    /**
+     * Removes buckets of addresses which haven't handshaked recently.
+     */
+    private void cleanup(long now) {
+        long time = nextCleanup.get();
+        if (now - time < 0 || !nextCleanup.compareAndSet(time, now + CLEANUP_INTERVAL)) {
+            return;
+        }
+
+        for (Iterator<TokenBucket> iterator = addressBuckets.values().iterator(); iterator.hasNext();) {
+            if (iterator.next().isFull(now)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public void release() {
+        if (config.getMaxConcurrent() > 0) {
+            concurrent.decrementAndGet();
+        }
+    }
+
+    int getAddressesAmount() {
+        return addressBuckets.size();
+    }
+
+}
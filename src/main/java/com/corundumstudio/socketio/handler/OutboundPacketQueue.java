@@ -0,0 +1,270 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.handler;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.corundumstudio.socketio.ServerMetrics;
+import com.corundumstudio.socketio.SlowConsumerPolicy;
+import com.corundumstudio.socketio.protocol.ConflatedPacket;
+import com.corundumstudio.socketio.protocol.Packet;
+import com.corundumstudio.socketio.protocol.PacketType;
+
+/**
+ * Client packets queue limited by packets amount and estimated size.
+ * Limits are checked without locking, so they could be
+ * slightly exceeded under concurrent sending.
+ * <p>
+ * Only event packets without ack are dropped or coalesced by policy,
+ * other packets are always queued.
+ *
+ */
+public class OutboundPacketQueue extends AbstractQueue<Packet> {
+
+    // packet is taken from entry exactly once, by consumer or by policy
+    private static class Entry extends AtomicReference<Packet> {
+
+        private static final long serialVersionUID = 4374372549460781513L;
+
+        final int size;
+
+        Entry(Packet packet, int size) {
+            super(packet);
+            this.size = size;
+        }
+
+    }
+
+    private final Queue<Entry> queue = new ConcurrentLinkedQueue<Entry>();
+    private final AtomicInteger packets = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+
+    private final int maxPackets;
+    private final long maxBytes;
+    private final SlowConsumerPolicy policy;
+    private final ServerMetrics metrics;
+
+    public OutboundPacketQueue(int maxPackets, long maxBytes, SlowConsumerPolicy policy, ServerMetrics metrics) {
+        this.maxPackets = maxPackets;
+        this.maxBytes = maxBytes;
+        this.policy = policy;
+        this.metrics = metrics;
+    }
+
+    public long getEstimatedBytes() {
+        return bytes.get();
+    }
+
+    private boolean isFull(int size) {
+        int amount = packets.get();
+        if (maxPackets > 0 && amount >= maxPackets) {
+            return true;
+        }
+        return maxBytes > 0 && amount > 0 && bytes.get() + size > maxBytes;
+    }
+
+    /**
+     * Event packets without ack could be dropped or replaced,
+     * losing other packets breaks protocol or ack callbacks.
+     */
+    static boolean isDroppable(Packet packet) {
+        return packet.getType() == PacketType.MESSAGE
+                && (packet.getSubType() == PacketType.EVENT || packet.getSubType() == PacketType.BINARY_EVENT)
+                    && packet.getAckId() == null;
+    }
+
+    /**
+     * Adds packet to queue applying slow consumer policy if it's full.
+     *
+     * @return <code>false</code> if packet was rejected by policy
+     */
+    @Override
+    public boolean offer(Packet packet) {
+        int size = packet.getEstimatedSize();
+        if (isFull(size)) {
+            switch (policy) {
+            case DISCONNECT:
+                reject(packet);
+                return false;
+
+            case DROP_NEWEST:
+                if (isDroppable(packet)) {
+                    metrics.onPacketDropped();
+                    reject(packet);
+                    return false;
+                }
+                break;
+
+            case COALESCE:
+                if (isDroppable(packet) && replaceSameEvent(packet)) {
+                    metrics.onPacketCoalesced();
+                    return true;
+                }
+                if (!dropOldest(size) && isDroppable(packet)) {
+                    metrics.onPacketDropped();
+                    reject(packet);
+                    return false;
+                }
+                break;
+
+            case DROP_OLDEST:
+                if (!dropOldest(size) && isDroppable(packet)) {
+                    metrics.onPacketDropped();
+                    reject(packet);
+                    return false;
+                }
+                break;
+            }
+        }
+
+        queue.add(new Entry(packet, size));
+        packets.incrementAndGet();
+        bytes.addAndGet(size);
+        return true;
+    }
+
+    /**
+     * Drops oldest droppable packets until there is space for new packet.
+     *
+     * @return <code>true</code> if space is available
+     */
+    private boolean dropOldest(int size) {
+        for (Iterator<Entry> iterator = queue.iterator(); iterator.hasNext() && isFull(size);) {
+            Entry entry = iterator.next();
+            Packet packet = entry.get();
+            if (packet == null || !isDroppable(packet)) {
+                continue;
+            }
+            packet = take(entry);
+            if (packet == null) {
+                continue;
+            }
+            iterator.remove();
+            reject(packet);
+            metrics.onPacketDropped();
+        }
+        return !isFull(size);
+    }
+
+    /**
+     * Replaces queued event with the same name and namespace in place,
+     * so events order is preserved. Queued entry keeps size estimated for replaced packet.
+     */
+    private boolean replaceSameEvent(Packet packet) {
+        if (packet.getName() == null) {
+            return false;
+        }
+
+        for (Entry entry : queue) {
+            Packet queued = entry.get();
+            if (queued != null
+                    && !(queued instanceof ConflatedPacket)
+                        && isDroppable(queued)
+                            && packet.getName().equals(queued.getName())
+                                && packet.getNsp().equals(queued.getNsp())
+                                    && entry.compareAndSet(queued, packet)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void reject(Packet packet) {
+        if (packet instanceof ConflatedPacket) {
+            // release slot, so next packet with the same key is queued again
+            ((ConflatedPacket) packet).take();
+        }
+    }
+
+    private Packet take(Entry entry) {
+        Packet packet = entry.getAndSet(null);
+        if (packet != null) {
+            packets.decrementAndGet();
+            bytes.addAndGet(-entry.size);
+        }
+        return packet;
+    }
+
+    @Override
+    public Packet poll() {
+        while (true) {
+            Entry entry = queue.poll();
+            if (entry == null) {
+                return null;
+            }
+            // skip entries already dropped by policy
+            Packet packet = take(entry);
+            if (packet != null) {
+                return packet;
+            }
+        }
+    }
+
+    @Override
+    public Packet peek() {
+        for (Entry entry : queue) {
+            Packet packet = entry.get();
+            if (packet != null) {
+                return packet;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return peek() == null;
+    }
+
+    @Override
+    public int size() {
+        return packets.get();
+    }
+
+    @Override
+    public Iterator<Packet> iterator() {
+        final Iterator<Entry> iterator = queue.iterator();
+        return new Iterator<Packet>() {
+
+            private Entry current;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Packet next() {
+                current = iterator.next();
+                return current.get();
+            }
+
+            @Override
+            public void remove() {
+                take(current);
+                iterator.remove();
+            }
+
+        };
+    }
+
+}
@@ -47,7 +47,7 @@ public class PacketListener {
         final AckRequest ackRequest = new AckRequest(packet, client);
 
         if (packet.isAckRequested()) {
-            ackManager.initAckIndex(client.getSessionId(), packet.getAckId());
+            ackManager.initAckIndex(client.getBaseClient(), packet.getAckId());
         }
 
         switch (packet.getType()) {
@@ -93,7 +93,7 @@ public class PacketListener {
 
             if (packet.getSubType() == PacketType.ACK
                     || packet.getSubType() == PacketType.BINARY_ACK) {
-                ackManager.onAck(client, packet);
+                ackManager.onAck(client.getBaseClient(), packet);
             }
 
             if (packet.getSubType() == PacketType.EVENT
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.handler;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.corundumstudio.socketio.Configuration;
+
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Periodically disconnects clients without inbound activity.
+ * Used instead of per-client ping timeouts when
+ * {@link Configuration#getPingTimeoutCheckInterval()} is set.
+ * <p>
+ * Clients are split by event loop of their handshake channel,
+ * each event loop checks only own clients.
+ */
+public class PingTimeoutSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(PingTimeoutSweeper.class);
+
+    class Shard implements Runnable {
+
+        private final EventExecutor executor;
+        private final Set<ClientHead> clients = Collections.newSetFromMap(PlatformDependent.<ClientHead, Boolean>newConcurrentHashMap());
+
+        Shard(EventExecutor executor) {
+            this.executor = executor;
+        }
+
+        void start() {
+            executor.schedule(this, configuration.getPingTimeoutCheckInterval(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void run() {
+            if (stopped) {
+                return;
+            }
+
+            try {
+                sweep(System.nanoTime());
+            } catch (Exception e) {
+                log.error("Ping timeout check failed", e);
+            } finally {
+                if (!stopped) {
+                    start();
+                }
+            }
+        }
+
+        void sweep(long now) {
+            long timeout = TimeUnit.MILLISECONDS.toNanos(configuration.getPingTimeout() + configuration.getPingInterval());
+            for (Iterator<ClientHead> iterator = clients.iterator(); iterator.hasNext();) {
+                ClientHead client = iterator.next();
+                UUID sessionId = client.getSessionId();
+                if (clientsBox.get(sessionId) != client) {
+                    // already disconnected
+                    iterator.remove();
+                    continue;
+                }
+                if (now - client.getLastActivityTime() > timeout) {
+                    iterator.remove();
+                    client.disconnect();
+                    log.debug("{} removed due to ping timeout", sessionId);
+                }
+            }
+        }
+
+        int size() {
+            return clients.size();
+        }
+
+    }
+
+    private final ConcurrentMap<EventExecutor, Shard> shards = PlatformDependent.newConcurrentHashMap();
+    private final ClientsBox clientsBox;
+    private final Configuration configuration;
+
+    private volatile boolean stopped;
+
+    public PingTimeoutSweeper(ClientsBox clientsBox, Configuration configuration) {
+        this.clientsBox = clientsBox;
+        this.configuration = configuration;
+    }
+
+    /**
+     * Adds client to the check performed by <code>executor</code>
+     *
+     * @param client - client
+     * @param executor - event loop of client channel
+     */
+    public void register(ClientHead client, EventExecutor executor) {
+        Shard shard = shards.get(executor);
+        if (shard == null) {
+            shard = new Shard(executor);
+            Shard oldShard = shards.putIfAbsent(executor, shard);
+            if (oldShard != null) {
+                shard = oldShard;
+            } else {
+                shard.start();
+            }
+        }
+        shard.clients.add(client);
+    }
+
+    Shard getShard(EventExecutor executor) {
+        return shards.get(executor);
+    }
+
+    public void stop() {
+        stopped = true;
+    }
+
+}
@@ -24,9 +24,17 @@ import io.netty.channel.Channel;
 
 public class TransportState {
 
-    private Queue<Packet> packetsQueue = new ConcurrentLinkedQueue<Packet>();
+    private Queue<Packet> packetsQueue;
     private Channel channel;
 
+    public TransportState() {
+        this(new ConcurrentLinkedQueue<Packet>());
+    }
+
+    public TransportState(Queue<Packet> packetsQueue) {
+        this.packetsQueue = packetsQueue;
+    }
+
     public void setPacketsQueue(Queue<Packet> packetsQueue) {
         this.packetsQueue = packetsQueue;
     }
@@ -0,0 +1,531 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.namespace;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Room registry which refers to each session by compact int handle.
+ * <p>
+ * Room keeps member handles in open addressing int table and switches
+ * to bitset once it becomes dense. Both are read without locks,
+ * so room iteration is weakly consistent and allocates only iterator object.
+ * <p>
+ * Modifications are guarded by session monitor and then by room monitor,
+ * always acquired in this order.
+ * <p>
+ * Room tables never shrink, so room keeps memory of its largest membership
+ * until it becomes empty and is removed.
+ */
+public class CompactRoomRegistry implements RoomRegistry {
+
+    private static final Room[] EMPTY_ROOMS = new Room[0];
+
+    private final ConcurrentMap<UUID, Member> members = PlatformDependent.newConcurrentHashMap();
+    private final ConcurrentMap<String, Room> rooms = PlatformDependent.newConcurrentHashMap();
+
+    private final Object handlesLock = new Object();
+    private volatile AtomicReferenceArray<Member> handles = new AtomicReferenceArray<Member>(64);
+    private int[] freeHandles = new int[16];
+    private int freeHandlesCount;
+    private int nextHandle;
+
+    @Override
+    public void join(String room, UUID sessionId) {
+        while (true) {
+            Member member = getOrCreateMember(sessionId);
+            synchronized (member) {
+                if (member.released) {
+                    // released by concurrent leave
+                    continue;
+                }
+                if (member.indexOf(room) != -1) {
+                    return;
+                }
+                member.addRoom(addToRoom(room, member.handle));
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void leave(String room, UUID sessionId) {
+        Member member = members.get(sessionId);
+        if (member == null) {
+            return;
+        }
+
+        synchronized (member) {
+            if (member.released) {
+                return;
+            }
+            int index = member.indexOf(room);
+            if (index == -1) {
+                return;
+            }
+            Room r = member.rooms[index];
+            member.removeRoom(index);
+            removeFromRoom(r, member.handle);
+
+            if (member.rooms.length == 0) {
+                release(member);
+            }
+        }
+    }
+
+    @Override
+    public void leaveAll(UUID sessionId) {
+        Member member = members.get(sessionId);
+        if (member == null) {
+            return;
+        }
+
+        synchronized (member) {
+            if (member.released) {
+                return;
+            }
+            for (Room room : member.rooms) {
+                removeFromRoom(room, member.handle);
+            }
+            member.rooms = EMPTY_ROOMS;
+            release(member);
+        }
+    }
+
+    @Override
+    public Set<String> getRooms(UUID sessionId) {
+        Member member = members.get(sessionId);
+        if (member == null) {
+            return Collections.emptySet();
+        }
+
+        Room[] memberRooms = member.rooms;
+        Set<String> result = new HashSet<String>(memberRooms.length * 2);
+        for (Room room : memberRooms) {
+            result.add(room.name);
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    @Override
+    public Set<String> getRooms() {
+        return Collections.unmodifiableSet(rooms.keySet());
+    }
+
+    @Override
+    public Iterable<UUID> getRoomMembers(final String room) {
+        return new Iterable<UUID>() {
+            @Override
+            public Iterator<UUID> iterator() {
+                Room r = rooms.get(room);
+                if (r == null) {
+                    return Collections.<UUID>emptySet().iterator();
+                }
+                return new RoomIterator(r);
+            }
+        };
+    }
+
+    private Member getOrCreateMember(UUID sessionId) {
+        Member member = members.get(sessionId);
+        if (member != null) {
+            return member;
+        }
+
+        member = new Member(allocateHandle(), sessionId);
+        // bound before member becomes reachable,
+        // so handle slot can't be overwritten after member release
+        synchronized (handlesLock) {
+            handles.set(member.handle, member);
+        }
+        Member oldMember = members.putIfAbsent(sessionId, member);
+        if (oldMember != null) {
+            freeHandle(member.handle);
+            return oldMember;
+        }
+        return member;
+    }
+
+    private void release(Member member) {
+        member.released = true;
+        members.remove(member.sessionId, member);
+        freeHandle(member.handle);
+    }
+
+    private int allocateHandle() {
+        synchronized (handlesLock) {
+            if (freeHandlesCount > 0) {
+                return freeHandles[--freeHandlesCount];
+            }
+
+            int handle = nextHandle++;
+            AtomicReferenceArray<Member> current = handles;
+            if (handle == current.length()) {
+                AtomicReferenceArray<Member> newHandles = new AtomicReferenceArray<Member>(current.length() * 2);
+                for (int i = 0; i < current.length(); i++) {
+                    newHandles.set(i, current.get(i));
+                }
+                handles = newHandles;
+            }
+            return handle;
+        }
+    }
+
+    private void freeHandle(int handle) {
+        synchronized (handlesLock) {
+            handles.set(handle, null);
+            if (freeHandlesCount == freeHandles.length) {
+                freeHandles = Arrays.copyOf(freeHandles, freeHandles.length * 2);
+            }
+            freeHandles[freeHandlesCount++] = handle;
+        }
+    }
+
+    private Member getMember(int handle) {
+        AtomicReferenceArray<Member> current = handles;
+        if (handle >= current.length()) {
+            return null;
+        }
+        return current.get(handle);
+    }
+
+    private Room addToRoom(String name, int handle) {
+        while (true) {
+            Room room = rooms.get(name);
+            if (room == null) {
+                room = new Room(name);
+                Room oldRoom = rooms.putIfAbsent(name, room);
+                if (oldRoom != null) {
+                    room = oldRoom;
+                }
+            }
+
+            synchronized (room) {
+                // room may be removed due to concurrent leave
+                if (room.removed) {
+                    continue;
+                }
+                room.add(handle, handles.length());
+                return room;
+            }
+        }
+    }
+
+    private void removeFromRoom(Room room, int handle) {
+        synchronized (room) {
+            room.remove(handle);
+            if (room.size == 0) {
+                room.removed = true;
+                rooms.remove(room.name, room);
+            }
+        }
+    }
+
+    private static final class Member {
+
+        final int handle;
+        final UUID sessionId;
+
+        // copy-on-write, modified under member monitor
+        volatile Room[] rooms = EMPTY_ROOMS;
+        boolean released;
+
+        Member(int handle, UUID sessionId) {
+            this.handle = handle;
+            this.sessionId = sessionId;
+        }
+
+        int indexOf(String name) {
+            Room[] current = rooms;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].name.equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        boolean isJoined(Room room) {
+            for (Room r : rooms) {
+                if (r == room) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void addRoom(Room room) {
+            Room[] current = rooms;
+            Room[] newRooms = Arrays.copyOf(current, current.length + 1);
+            newRooms[current.length] = room;
+            rooms = newRooms;
+        }
+
+        void removeRoom(int index) {
+            Room[] current = rooms;
+            Room[] newRooms = new Room[current.length - 1];
+            System.arraycopy(current, 0, newRooms, 0, index);
+            System.arraycopy(current, index + 1, newRooms, index, current.length - index - 1);
+            rooms = newRooms;
+        }
+
+    }
+
+    private static final class Room {
+
+        private static final int MIN_TABLE_SIZE = 8;
+        private static final int DENSE_ROOM_SIZE = 64;
+        private static final int FREE = 0;
+        private static final int REMOVED = -1;
+
+        final String name;
+
+        // guarded by room monitor
+        boolean removed;
+        int size;
+        private int usedSlots;
+
+        // table stores handle + 1, room uses table until bits are set
+        volatile AtomicIntegerArray table = new AtomicIntegerArray(MIN_TABLE_SIZE);
+        volatile AtomicLongArray bits;
+
+        Room(String name) {
+            this.name = name;
+        }
+
+        void add(int handle, int handlesCapacity) {
+            if (bits == null
+                    && size >= DENSE_ROOM_SIZE
+                        && (long) size * 64 >= handlesCapacity) {
+                convertToBits(handlesCapacity);
+            }
+
+            if (bits != null) {
+                AtomicLongArray current = bits;
+                int wordIndex = handle >>> 6;
+                if (wordIndex >= current.length()) {
+                    current = copyOf(current, Math.max(wordIndex + 1, current.length() * 2));
+                    bits = current;
+                }
+                current.set(wordIndex, current.get(wordIndex) | (1L << handle));
+            } else {
+                if ((usedSlots + 1) * 2 > table.length()) {
+                    rehash(size + 1);
+                }
+                AtomicIntegerArray current = table;
+                int mask = current.length() - 1;
+                int index = hash(handle) & mask;
+                while (true) {
+                    int value = current.get(index);
+                    if (value == FREE || value == REMOVED) {
+                        if (value == FREE) {
+                            usedSlots++;
+                        }
+                        current.set(index, handle + 1);
+                        break;
+                    }
+                    index = (index + 1) & mask;
+                }
+            }
+            size++;
+        }
+
+        void remove(int handle) {
+            if (bits != null) {
+                AtomicLongArray current = bits;
+                int wordIndex = handle >>> 6;
+                current.set(wordIndex, current.get(wordIndex) & ~(1L << handle));
+                size--;
+                return;
+            }
+
+            AtomicIntegerArray current = table;
+            int mask = current.length() - 1;
+            int index = hash(handle) & mask;
+            while (true) {
+                int value = current.get(index);
+                if (value == FREE) {
+                    return;
+                }
+                if (value == handle + 1) {
+                    // tombstone keeps concurrent iteration over other members stable
+                    current.set(index, REMOVED);
+                    size--;
+                    break;
+                }
+                index = (index + 1) & mask;
+            }
+
+            if (size > 0 && size * 8 < current.length() && current.length() > MIN_TABLE_SIZE) {
+                rehash(size);
+            }
+        }
+
+        private void rehash(int minSize) {
+            int length = MIN_TABLE_SIZE;
+            while (length < minSize * 3) {
+                length <<= 1;
+            }
+
+            AtomicIntegerArray current = table;
+            AtomicIntegerArray newTable = new AtomicIntegerArray(length);
+            int mask = length - 1;
+            for (int i = 0; i < current.length(); i++) {
+                int value = current.get(i);
+                if (value > 0) {
+                    int index = hash(value - 1) & mask;
+                    while (newTable.get(index) != FREE) {
+                        index = (index + 1) & mask;
+                    }
+                    newTable.set(index, value);
+                }
+            }
+            usedSlots = size;
+            table = newTable;
+        }
+
+        private void convertToBits(int handlesCapacity) {
+            AtomicIntegerArray current = table;
+            AtomicLongArray newBits = new AtomicLongArray((handlesCapacity + 63) >>> 6);
+            for (int i = 0; i < current.length(); i++) {
+                int value = current.get(i);
+                if (value > 0) {
+                    int handle = value - 1;
+                    int wordIndex = handle >>> 6;
+                    if (wordIndex >= newBits.length()) {
+                        newBits = copyOf(newBits, wordIndex + 1);
+                    }
+                    newBits.set(wordIndex, newBits.get(wordIndex) | (1L << handle));
+                }
+            }
+            // bits should be published before table reset, see RoomIterator
+            bits = newBits;
+            table = null;
+        }
+
+        private static AtomicLongArray copyOf(AtomicLongArray array, int length) {
+            AtomicLongArray result = new AtomicLongArray(length);
+            for (int i = 0; i < array.length(); i++) {
+                result.set(i, array.get(i));
+            }
+            return result;
+        }
+
+        private static int hash(int handle) {
+            int h = handle * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+    }
+
+    private final class RoomIterator implements Iterator<UUID> {
+
+        private final Room room;
+        private final AtomicIntegerArray table;
+        private final AtomicLongArray bits;
+        private int index;
+        private UUID next;
+
+        RoomIterator(Room room) {
+            this.room = room;
+
+            AtomicLongArray roomBits = room.bits;
+            AtomicIntegerArray roomTable = null;
+            if (roomBits == null) {
+                roomTable = room.table;
+                if (roomTable == null) {
+                    // converted to bits concurrently
+                    roomBits = room.bits;
+                }
+            }
+            this.bits = roomBits;
+            this.table = roomTable;
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            if (table != null) {
+                while (index < table.length()) {
+                    int value = table.get(index++);
+                    if (value > 0 && resolve(value - 1)) {
+                        return;
+                    }
+                }
+                return;
+            }
+
+            int limit = bits.length() << 6;
+            while (index < limit) {
+                int wordIndex = index >>> 6;
+                long word = bits.get(wordIndex) & (-1L << index);
+                if (word == 0) {
+                    index = (wordIndex + 1) << 6;
+                    continue;
+                }
+                int handle = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                index = handle + 1;
+                if (resolve(handle)) {
+                    return;
+                }
+            }
+        }
+
+        private boolean resolve(int handle) {
+            Member member = getMember(handle);
+            // handle may be already reused by another session
+            if (member != null && member.isJoined(room)) {
+                next = member.sessionId;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public UUID next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            UUID result = next;
+            advance();
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
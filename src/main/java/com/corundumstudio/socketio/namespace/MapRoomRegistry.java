@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.namespace;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Room registry based on two concurrent maps of sets: rooms to sessions
+ * and sessions to rooms.
+ */
+public class MapRoomRegistry implements RoomRegistry {
+
+    private final ConcurrentMap<String, Set<UUID>> roomClients = PlatformDependent.newConcurrentHashMap();
+    private final ConcurrentMap<UUID, Set<String>> clientRooms = PlatformDependent.newConcurrentHashMap();
+
+    private <K, V> void join(ConcurrentMap<K, Set<V>> map, K key, V value) {
+        Set<V> clients = map.get(key);
+        if (clients == null) {
+            clients = Collections.newSetFromMap(PlatformDependent.<V, Boolean>newConcurrentHashMap());
+            Set<V> oldClients = map.putIfAbsent(key, clients);
+            if (oldClients != null) {
+                clients = oldClients;
+            }
+        }
+        clients.add(value);
+        // object may be changed due to other concurrent call
+        if (clients != map.get(key)) {
+            // re-join if queue has been replaced
+            join(map, key, value);
+        }
+    }
+
+    @Override
+    public void join(String room, UUID sessionId) {
+        join(roomClients, room, sessionId);
+        join(clientRooms, sessionId, room);
+    }
+
+    private <K, V> void leave(ConcurrentMap<K, Set<V>> map, K room, V sessionId) {
+        Set<V> clients = map.get(room);
+        if (clients == null) {
+            return;
+        }
+        clients.remove(sessionId);
+
+        if (clients.isEmpty()) {
+            map.remove(room, Collections.emptySet());
+        }
+    }
+
+    @Override
+    public void leave(String room, UUID sessionId) {
+        leave(roomClients, room, sessionId);
+        leave(clientRooms, sessionId, room);
+    }
+
+    @Override
+    public void leaveAll(UUID sessionId) {
+        Set<String> joinedRooms = clientRooms.remove(sessionId);
+        if (joinedRooms == null) {
+            return;
+        }
+        for (String joinedRoom : joinedRooms) {
+            leave(roomClients, joinedRoom, sessionId);
+        }
+    }
+
+    @Override
+    public Set<String> getRooms(UUID sessionId) {
+        Set<String> res = clientRooms.get(sessionId);
+        if (res == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(res);
+    }
+
+    @Override
+    public Set<String> getRooms() {
+        return roomClients.keySet();
+    }
+
+    @Override
+    public Iterable<UUID> getRoomMembers(final String room) {
+        return new Iterable<UUID>() {
+            @Override
+            public Iterator<UUID> iterator() {
+                Set<UUID> sessionIds = roomClients.get(room);
+                if (sessionIds == null) {
+                    return Collections.<UUID>emptySet().iterator();
+                }
+                return sessionIds.iterator();
+            }
+        };
+    }
+
+}
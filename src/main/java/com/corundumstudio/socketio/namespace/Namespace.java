@@ -15,9 +15,9 @@
  */
 package com.corundumstudio.socketio.namespace;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
@@ -25,6 +25,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 
 import com.corundumstudio.socketio.AckMode;
 import com.corundumstudio.socketio.AckRequest;
@@ -62,8 +63,7 @@ public class Namespace implements SocketIONamespace {
     private final Queue<EventInterceptor> eventInterceptors = new ConcurrentLinkedQueue<EventInterceptor>();
 
     private final Map<UUID, SocketIOClient> allClients = PlatformDependent.newConcurrentHashMap();
-    private final ConcurrentMap<String, Set<UUID>> roomClients = PlatformDependent.newConcurrentHashMap();
-    private final ConcurrentMap<UUID, Set<String>> clientRooms = PlatformDependent.newConcurrentHashMap();
+    private final RoomRegistry roomRegistry;
 
     private final String name;
     private final AckMode ackMode;
@@ -71,6 +71,9 @@ public class Namespace implements SocketIONamespace {
     private final StoreFactory storeFactory;
     private final ExceptionListener exceptionListener;
 
+    private volatile Executor listenerExecutor;
+    private final ConcurrentMap<String, Executor> eventExecutors = PlatformDependent.newConcurrentHashMap();
+
     public Namespace(String name, Configuration configuration) {
         super();
         this.name = name;
@@ -78,6 +81,33 @@ public class Namespace implements SocketIONamespace {
         this.storeFactory = configuration.getStoreFactory();
         this.exceptionListener = configuration.getExceptionListener();
         this.ackMode = configuration.getAckMode();
+        this.roomRegistry = configuration.getRoomRegistryFactory().create(name);
+        this.listenerExecutor = configuration.getListenerExecutor();
+    }
+
+    @Override
+    public void setListenerExecutor(Executor executor) {
+        this.listenerExecutor = executor;
+    }
+
+    @Override
+    public void setEventExecutor(String eventName, Executor executor) {
+        if (executor == null) {
+            eventExecutors.remove(eventName);
+        } else {
+            eventExecutors.put(eventName, executor);
+        }
+    }
+
+    private void execute(SocketIOClient client, Executor executor, Runnable task) {
+        if (executor == null) {
+            task.run();
+        } else if (client instanceof NamespaceClient) {
+            // keeps listeners order of each client
+            ((NamespaceClient) client).getBaseClient().getSerialExecutor(executor).execute(task);
+        } else {
+            executor.execute(task);
+        }
     }
 
     public void addClient(SocketIOClient client) {
@@ -132,13 +162,30 @@ public class Namespace implements SocketIONamespace {
         eventInterceptors.add(eventInterceptor);
     }
 
-    @SuppressWarnings({"rawtypes", "unchecked"})
-    public void onEvent(NamespaceClient client, String eventName, List<Object> args, AckRequest ackRequest) {
-        EventEntry entry = eventListeners.get(eventName);
+    public void onEvent(final NamespaceClient client, final String eventName, final List<Object> args, final AckRequest ackRequest) {
+        final EventEntry<?> entry = eventListeners.get(eventName);
         if (entry == null) {
             return;
         }
 
+        Executor executor = eventExecutors.get(eventName);
+        if (executor == null) {
+            executor = listenerExecutor;
+        }
+        if (executor == null) {
+            handleEvent(entry, client, eventName, args, ackRequest);
+            return;
+        }
+        execute(client, executor, new Runnable() {
+            @Override
+            public void run() {
+                handleEvent(entry, client, eventName, args, ackRequest);
+            }
+        });
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private void handleEvent(EventEntry entry, NamespaceClient client, String eventName, List<Object> args, AckRequest ackRequest) {
         try {
             Queue<DataListener> listeners = entry.getListeners();
             for (DataListener dataListener : listeners) {
@@ -183,25 +230,26 @@ public class Namespace implements SocketIONamespace {
         disconnectListeners.add(listener);
     }
 
-    public void onDisconnect(SocketIOClient client) {
-        Set<String> joinedRooms = client.getAllRooms();        
+    public void onDisconnect(final SocketIOClient client) {
         allClients.remove(client.getSessionId());
 
         leave(getName(), client.getSessionId());
         storeFactory.pubSubStore().publish(PubSubType.LEAVE, new JoinLeaveMessage(client.getSessionId(), getName(), getName()));
 
-        for (String joinedRoom : joinedRooms) {
-            leave(roomClients, joinedRoom, client.getSessionId());
-        }
-        clientRooms.remove(client.getSessionId());
-
-        try {
-            for (DisconnectListener listener : disconnectListeners) {
-                listener.onDisconnect(client);
+        roomRegistry.leaveAll(client.getSessionId());
+
+        execute(client, listenerExecutor, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (DisconnectListener listener : disconnectListeners) {
+                        listener.onDisconnect(client);
+                    }
+                } catch (Exception e) {
+                    exceptionListener.onDisconnectException(e, client);
+                }
             }
-        } catch (Exception e) {
-            exceptionListener.onDisconnectException(e, client);
-        }
+        });
     }
 
     @Override
@@ -209,17 +257,22 @@ public class Namespace implements SocketIONamespace {
         connectListeners.add(listener);
     }
 
-    public void onConnect(SocketIOClient client) {
+    public void onConnect(final SocketIOClient client) {
         join(getName(), client.getSessionId());
         storeFactory.pubSubStore().publish(PubSubType.JOIN, new JoinLeaveMessage(client.getSessionId(), getName(), getName()));
 
-        try {
-            for (ConnectListener listener : connectListeners) {
-                listener.onConnect(client);
+        execute(client, listenerExecutor, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (ConnectListener listener : connectListeners) {
+                        listener.onConnect(client);
+                    }
+                } catch (Exception e) {
+                    exceptionListener.onConnectException(e, client);
+                }
             }
-        } catch (Exception e) {
-            exceptionListener.onConnectException(e, client);
-        }
+        });
     }
 
     @Override
@@ -227,24 +280,33 @@ public class Namespace implements SocketIONamespace {
         pingListeners.add(listener);
     }
 
-    public void onPing(SocketIOClient client) {
-        try {
-            for (PingListener listener : pingListeners) {
-                listener.onPing(client);
-            }
-        } catch (Exception e) {
-            exceptionListener.onPingException(e, client);
+    public void onPing(final SocketIOClient client) {
+        if (pingListeners.isEmpty()) {
+            return;
         }
+
+        execute(client, listenerExecutor, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (PingListener listener : pingListeners) {
+                        listener.onPing(client);
+                    }
+                } catch (Exception e) {
+                    exceptionListener.onPingException(e, client);
+                }
+            }
+        });
     }
 
     @Override
     public BroadcastOperations getBroadcastOperations() {
-        return new BroadcastOperations(allClients.values(), storeFactory);
+        return new BroadcastOperations(allClients.values(), storeFactory, Collections.singleton(this), null);
     }
 
     @Override
     public BroadcastOperations getRoomOperations(String room) {
-        return new BroadcastOperations(getRoomClients(room), storeFactory);
+        return new BroadcastOperations(getRoomClients(room), storeFactory, Collections.singleton(this), room);
     }
 
     @Override
@@ -290,31 +352,15 @@ public class Namespace implements SocketIONamespace {
     public void dispatch(String room, Packet packet) {
         Iterable<SocketIOClient> clients = getRoomClients(room);
 
+        // encode packet once for all room clients
+        Packet sharedPacket = packet.withSharedNsp(getName());
         for (SocketIOClient socketIOClient : clients) {
-            socketIOClient.send(packet);
-        }
-    }
-
-    private <K, V> void join(ConcurrentMap<K, Set<V>> map, K key, V value) {
-        Set<V> clients = map.get(key);
-        if (clients == null) {
-            clients = Collections.newSetFromMap(PlatformDependent.<V, Boolean>newConcurrentHashMap());
-            Set<V> oldClients = map.putIfAbsent(key, clients);
-            if (oldClients != null) {
-                clients = oldClients;
-            }
-        }
-        clients.add(value);
-        // object may be changed due to other concurrent call
-        if (clients != map.get(key)) {
-            // re-join if queue has been replaced
-            join(map, key, value);
+            socketIOClient.send(sharedPacket);
         }
     }
 
     public void join(String room, UUID sessionId) {
-        join(roomClients, room, sessionId);
-        join(clientRooms, sessionId, room);
+        roomRegistry.join(room, sessionId);
     }
 
     public void leaveRoom(String room, UUID sessionId) {
@@ -322,50 +368,33 @@ public class Namespace implements SocketIONamespace {
         storeFactory.pubSubStore().publish(PubSubType.LEAVE, new JoinLeaveMessage(sessionId, room, getName()));
     }
 
-    private <K, V> void leave(ConcurrentMap<K, Set<V>> map, K room, V sessionId) {
-        Set<V> clients = map.get(room);
-        if (clients == null) {
-            return;
-        }
-        clients.remove(sessionId);
-
-        if (clients.isEmpty()) {
-            map.remove(room, Collections.emptySet());
-        }
-    }
-
     public void leave(String room, UUID sessionId) {
-        leave(roomClients, room, sessionId);
-        leave(clientRooms, sessionId, room);
+        roomRegistry.leave(room, sessionId);
     }
 
     public Set<String> getRooms(SocketIOClient client) {
-        Set<String> res = clientRooms.get(client.getSessionId());
-        if (res == null) {
-            return Collections.emptySet();
-        }
-        return Collections.unmodifiableSet(res);
+        return roomRegistry.getRooms(client.getSessionId());
     }
 
     public Set<String> getRooms() {
-        return roomClients.keySet();
+        return roomRegistry.getRooms();
     }
 
+    /**
+     * Lazy view of room clients. Membership is not copied,
+     * iteration is weakly consistent.
+     *
+     * @param room - name of room
+     * @return room clients
+     */
     public Iterable<SocketIOClient> getRoomClients(String room) {
-        Set<UUID> sessionIds = roomClients.get(room);
-
-        if (sessionIds == null) {
-            return Collections.emptyList();
-        }
-
-        List<SocketIOClient> result = new ArrayList<SocketIOClient>();
-        for (UUID sessionId : sessionIds) {
-            SocketIOClient client = allClients.get(sessionId);
-            if(client != null) {
-                result.add(client);
+        final Iterable<UUID> sessionIds = roomRegistry.getRoomMembers(room);
+        return new Iterable<SocketIOClient>() {
+            @Override
+            public Iterator<SocketIOClient> iterator() {
+                return new RoomClientsIterator(sessionIds.iterator(), allClients);
             }
-        }
-        return result;
+        };
     }
 
     @Override
@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.namespace;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+import com.corundumstudio.socketio.SocketIOClient;
+
+/**
+ * Resolves room members to namespace clients during iteration.
+ * Members without local client, like sessions of other nodes, are skipped.
+ *
+ */
+class RoomClientsIterator implements Iterator<SocketIOClient> {
+
+    private final Iterator<UUID> sessionIds;
+    private final Map<UUID, SocketIOClient> clients;
+    private SocketIOClient next;
+
+    RoomClientsIterator(Iterator<UUID> sessionIds, Map<UUID, SocketIOClient> clients) {
+        this.sessionIds = sessionIds;
+        this.clients = clients;
+        advance();
+    }
+
+    private void advance() {
+        next = null;
+        while (sessionIds.hasNext()) {
+            SocketIOClient client = clients.get(sessionIds.next());
+            if (client != null) {
+                next = client;
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    @Override
+    public SocketIOClient next() {
+        if (next == null) {
+            throw new NoSuchElementException();
+        }
+        SocketIOClient result = next;
+        advance();
+        return result;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+}
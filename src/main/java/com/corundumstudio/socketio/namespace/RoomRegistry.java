@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.namespace;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Room membership index of namespace.
+ * <p>
+ * Implementation should be thread-safe. Room members iteration
+ * should be weakly consistent and should not copy room membership.
+ *
+ * @see RoomRegistryFactory
+ */
+public interface RoomRegistry {
+
+    void join(String room, UUID sessionId);
+
+    void leave(String room, UUID sessionId);
+
+    /**
+     * Removes session from all joined rooms
+     *
+     * @param sessionId - session id
+     */
+    void leaveAll(UUID sessionId);
+
+    /**
+     * Rooms joined by session
+     *
+     * @param sessionId - session id
+     * @return rooms set
+     */
+    Set<String> getRooms(UUID sessionId);
+
+    /**
+     * All rooms with at least one member
+     *
+     * @return rooms set
+     */
+    Set<String> getRooms();
+
+    /**
+     * Session ids of room members. Room is resolved on each
+     * {@link Iterable#iterator()} invocation.
+     *
+     * @param room - room name
+     * @return room members
+     */
+    Iterable<UUID> getRoomMembers(String room);
+
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.protocol;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Queue slot holding latest packet for conflation key.
+ * Packet is replaced in place until slot is polled from queue.
+ *
+ */
+public class ConflatedPacket extends Packet {
+
+    private static final long serialVersionUID = -3096340811468640436L;
+
+    private final AtomicReference<Packet> packet;
+    private final String key;
+    private final transient ConcurrentMap<String, ConflatedPacket> slots;
+
+    private ConflatedPacket(String key, Packet packet, ConcurrentMap<String, ConflatedPacket> slots) {
+        super(packet.getType());
+        setSubType(packet.getSubType());
+        this.key = key;
+        this.packet = new AtomicReference<Packet>(packet);
+        this.slots = slots;
+    }
+
+    /**
+     * Replaces packet of pending slot with the same key
+     * or creates new slot.
+     *
+     * @param key - conflation key
+     * @param packet - packet to send
+     * @param slots - pending slots
+     * @return new slot which should be queued or <code>null</code> if pending packet was replaced
+     */
+    public static ConflatedPacket conflate(String key, Packet packet, ConcurrentMap<String, ConflatedPacket> slots) {
+        ConflatedPacket newSlot = null;
+        // only one pending slot per key is published
+        while (true) {
+            ConflatedPacket slot = slots.get(key);
+            if (slot == null) {
+                if (newSlot == null) {
+                    newSlot = new ConflatedPacket(key, packet, slots);
+                }
+                if (slots.putIfAbsent(key, newSlot) == null) {
+                    return newSlot;
+                }
+                continue;
+            }
+
+            Packet current = slot.packet.get();
+            if (current != null) {
+                if (slot.packet.compareAndSet(current, packet)) {
+                    return null;
+                }
+                continue;
+            }
+
+            // slot has been taken but not released yet
+            if (newSlot == null) {
+                newSlot = new ConflatedPacket(key, packet, slots);
+            }
+            if (slots.replace(key, slot, newSlot)) {
+                return newSlot;
+            }
+        }
+    }
+
+    /**
+     * Takes latest packet and releases slot.
+     * Further packets with the same key are queued in new slot.
+     *
+     * @return packet or <code>null</code> if already taken
+     */
+    public Packet take() {
+        Packet result = packet.getAndSet(null);
+        slots.remove(key, this);
+        return result;
+    }
+
+    /**
+     * Polls next packet from queue unwrapping conflated slots.
+     *
+     * @param packets - queue
+     * @return packet or <code>null</code> if queue is empty
+     */
+    public static Packet poll(Queue<Packet> packets) {
+        while (true) {
+            Packet packet = packets.poll();
+            if (!(packet instanceof ConflatedPacket)) {
+                return packet;
+            }
+            Packet result = ((ConflatedPacket) packet).take();
+            if (result != null) {
+                return result;
+            }
+        }
+    }
+
+    @Override
+    public int getEstimatedSize() {
+        Packet current = packet.get();
+        if (current == null) {
+            return 0;
+        }
+        return current.getEstimatedSize();
+    }
+
+}
@@ -19,8 +19,10 @@ import io.netty.buffer.ByteBuf;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import com.corundumstudio.socketio.namespace.Namespace;
 
@@ -28,6 +30,12 @@ public class Packet implements Serializable {
 
     private static final long serialVersionUID = 4560159536486711426L;
 
+    // packet header, namespace and ack id
+    private static final int ESTIMATED_HEADER_SIZE = 32;
+    // numbers, booleans and objects of unknown structure
+    private static final int ESTIMATED_VALUE_SIZE = 16;
+    private static final int MAX_ESTIMATION_DEPTH = 4;
+
     private PacketType type;
     private PacketType subType;
     private Long ackId;
@@ -39,6 +47,9 @@ public class Packet implements Serializable {
     private int attachmentsCount;
     private List<ByteBuf> attachments = Collections.emptyList();
 
+    private transient volatile boolean encodeOnce;
+    private transient volatile ByteBuf encodedFrame;
+
     protected Packet() {
     }
 
@@ -99,6 +110,31 @@ public class Packet implements Serializable {
         }
     }
 
+    /**
+     * Creates a private copy of #{@link Packet} with namespace set
+     * and encode-once mode enabled, so caller's packet stays
+     * free to modify or send again.
+     * Returns original object if it's already in encode-once mode
+     * with the same namespace.
+     */
+    public Packet withSharedNsp(String namespace) {
+        if (encodeOnce && this.nsp.equalsIgnoreCase(namespace)) {
+            return this;
+        }
+
+        Packet newPacket = new Packet(this.type);
+        newPacket.setAckId(this.ackId);
+        newPacket.setData(this.data);
+        newPacket.setDataSource(this.dataSource);
+        newPacket.setName(this.name);
+        newPacket.setSubType(this.subType);
+        newPacket.setNsp(namespace);
+        newPacket.attachments = this.attachments;
+        newPacket.attachmentsCount = this.attachmentsCount;
+        newPacket.setEncodeOnce(true);
+        return newPacket;
+    }
+
     public void setNsp(String endpoint) {
         this.nsp = endpoint;
     }
@@ -146,6 +182,91 @@ public class Packet implements Serializable {
         return this.attachments.size() == attachmentsCount;
     }
 
+    /**
+     * Marks packet as shared by many recipients.
+     * Its frame is encoded only once and reused
+     * for each recipient after that.
+     *
+     * Packet should not be modified after first send
+     * in this mode.
+     *
+     * @param encodeOnce - <code>true</code> to encode packet only once
+     */
+    public void setEncodeOnce(boolean encodeOnce) {
+        this.encodeOnce = encodeOnce;
+    }
+    public boolean isEncodeOnce() {
+        return encodeOnce;
+    }
+
+    ByteBuf getEncodedFrame() {
+        return encodedFrame;
+    }
+    /**
+     * Sets already encoded frame content,
+     * for example received from other cluster node.
+     * Should be used with encode-once mode only.
+     *
+     * @param encodedFrame - unreleasable frame content
+     */
+    public void setEncodedFrame(ByteBuf encodedFrame) {
+        this.encodedFrame = encodedFrame;
+    }
+
+    /**
+     * Returns size of encoded frame if it's available
+     * or rough estimation of JSON payload otherwise.
+     *
+     * @return estimated size in bytes
+     */
+    public int getEstimatedSize() {
+        ByteBuf frame = encodedFrame;
+        if (frame != null) {
+            return frame.readableBytes();
+        }
+        int size = ESTIMATED_HEADER_SIZE + estimateSize(name, 0) + estimateSize(data, 0);
+        for (ByteBuf attachment : attachments) {
+            size += attachment.readableBytes();
+        }
+        return size;
+    }
+
+    private static int estimateSize(Object value, int depth) {
+        if (value == null) {
+            return 4;
+        }
+        if (value instanceof CharSequence) {
+            return ((CharSequence) value).length() + 2;
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        }
+        if (depth < MAX_ESTIMATION_DEPTH) {
+            if (value instanceof Collection) {
+                int size = 2;
+                for (Object item : (Collection<?>) value) {
+                    size += estimateSize(item, depth + 1) + 1;
+                }
+                return size;
+            }
+            if (value instanceof Object[]) {
+                int size = 2;
+                for (Object item : (Object[]) value) {
+                    size += estimateSize(item, depth + 1) + 1;
+                }
+                return size;
+            }
+            if (value instanceof Map) {
+                int size = 2;
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    size += estimateSize(entry.getKey(), depth + 1) + estimateSize(entry.getValue(), depth + 1) + 2;
+                }
+                return size;
+            }
+        }
+        return ESTIMATED_VALUE_SIZE;
+    }
+
     public ByteBuf getDataSource() {
         return dataSource;
     }
@@ -18,6 +18,8 @@ package com.corundumstudio.socketio.protocol;
 import com.corundumstudio.socketio.AckCallback;
 import com.corundumstudio.socketio.ack.AckManager;
 import com.corundumstudio.socketio.handler.ClientHead;
+import com.corundumstudio.socketio.namespace.Namespace;
+import com.corundumstudio.socketio.namespace.NamespacesHub;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.Unpooled;
@@ -26,21 +28,39 @@ import io.netty.util.CharsetUtil;
 
 import java.io.IOException;
 import java.net.URLDecoder;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 
 public class PacketDecoder {
 
+    private static final byte[] PLACEHOLDER_PREFIX = "{\"_placeholder\":true,\"num\":".getBytes(CharsetUtil.UTF_8);
+    private static final byte[] PLACEHOLDER_SUFFIX = "}".getBytes(CharsetUtil.UTF_8);
+    private static final byte[] NUM_PLACEHOLDER_PREFIX = "{\"num\":".getBytes(CharsetUtil.UTF_8);
+    private static final byte[] NUM_PLACEHOLDER_SUFFIX = ",\"_placeholder\":true}".getBytes(CharsetUtil.UTF_8);
+
+    private static final int MAX_CACHED_NAMESPACES = 64;
+
     private final UTF8CharsScanner utf8scanner = new UTF8CharsScanner();
 
     private final ByteBuf QUOTES = Unpooled.copiedBuffer("\"", CharsetUtil.UTF_8);
 
+    // copy-on-write, namespaces amount is small and rarely changes
+    private volatile NamespaceName[] namespaceNames = new NamespaceName[0];
+
     private final JsonSupport jsonSupport;
     private final AckManager ackManager;
+    private final NamespacesHub namespacesHub;
 
     public PacketDecoder(JsonSupport jsonSupport, AckManager ackManager) {
+        this(jsonSupport, ackManager, null);
+    }
+
+    public PacketDecoder(JsonSupport jsonSupport, AckManager ackManager, NamespacesHub namespacesHub) {
         this.jsonSupport = jsonSupport;
         this.ackManager = ackManager;
+        this.namespacesHub = namespacesHub;
     }
 
     private boolean isStringPacket(ByteBuf content) {
@@ -70,14 +90,11 @@ public class PacketDecoder {
     // fastest way to parse chars to int
     private long readLong(ByteBuf chars, int length) {
         long result = 0;
-        for (int i = chars.readerIndex(); i < chars.readerIndex() + length; i++) {
-            int digit = ((int)chars.getByte(i) & 0xF);
-            for (int j = 0; j < chars.readerIndex() + length-1-i; j++) {
-                digit *= 10;
-            }
-            result += digit;
+        int endIndex = chars.readerIndex() + length;
+        for (int i = chars.readerIndex(); i < endIndex; i++) {
+            result = result * 10 + (chars.getByte(i) & 0xF);
         }
-        chars.readerIndex(chars.readerIndex() + length);
+        chars.readerIndex(endIndex);
         return result;
     }
 
@@ -147,9 +164,51 @@ public class PacketDecoder {
     }
 
     private String readString(ByteBuf frame, int size) {
-        byte[] bytes = new byte[size];
-        frame.readBytes(bytes);
-        return new String(bytes, CharsetUtil.UTF_8);
+        String value = frame.toString(frame.readerIndex(), size, CharsetUtil.UTF_8);
+        frame.skipBytes(size);
+        return value;
+    }
+
+    /**
+     * Reads namespace name. Names registered in {@link NamespacesHub} are interned,
+     * so the same String instance is returned for them without any allocation.
+     */
+    private String readNamespaceName(ByteBuf frame, int size) {
+        if (size == 0) {
+            return Namespace.DEFAULT_NAME;
+        }
+
+        NamespaceName[] names = namespaceNames;
+        for (NamespaceName name : names) {
+            if (name.matches(frame, size)) {
+                frame.skipBytes(size);
+                return name.getValue();
+            }
+        }
+
+        String value = readString(frame, size);
+        if (namespacesHub != null) {
+            Namespace namespace = namespacesHub.get(value);
+            if (namespace != null) {
+                return addNamespaceName(namespace.getName());
+            }
+        }
+        return value;
+    }
+
+    private synchronized String addNamespaceName(String value) {
+        NamespaceName[] names = namespaceNames;
+        for (NamespaceName name : names) {
+            if (name.getValue().equals(value)) {
+                return name.getValue();
+            }
+        }
+        if (names.length < MAX_CACHED_NAMESPACES) {
+            NamespaceName[] newNames = Arrays.copyOf(names, names.length + 1);
+            newNames[names.length] = new NamespaceName(value);
+            namespaceNames = newNames;
+        }
+        return value;
     }
 
     private Packet decode(ClientHead head, ByteBuf frame) throws IOException {
@@ -197,16 +256,15 @@ public class PacketDecoder {
             return;
         }
 
-        // TODO optimize
-        boolean hasNsp = frame.bytesBefore(endIndex, (byte)',') != -1;
-        if (hasNsp) {
-            String nspAckId = readString(frame, endIndex);
-            String[] parts = nspAckId.split(",");
-            String nsp = parts[0];
-            packet.setNsp(nsp);
-            if (parts.length > 1) {
-                String ackId = parts[1];
-                packet.setAckId(Long.valueOf(ackId));
+        int nspEndIndex = frame.bytesBefore(endIndex, (byte)',');
+        if (nspEndIndex != -1) {
+            packet.setNsp(readNamespaceName(frame, nspEndIndex));
+            // skip ','
+            frame.skipBytes(1);
+
+            int ackIdLength = endIndex - nspEndIndex - 1;
+            if (ackIdLength > 0) {
+                packet.setAckId(readLong(frame, ackIdLength));
             }
         } else {
             long ackId = readLong(frame, endIndex);
@@ -242,15 +300,15 @@ public class PacketDecoder {
             frame.readerIndex(frame.readerIndex() + frame.readableBytes());
 
             if (binaryPacket.isAttachmentsLoaded()) {
-                LinkedList<ByteBuf> slices = new LinkedList<ByteBuf>();
+                List<ByteBuf> attachments = binaryPacket.getAttachments();
+                List<ByteBuf> slices = new ArrayList<ByteBuf>(attachments.size() * 4 + 1);
                 ByteBuf source = binaryPacket.getDataSource();
-                for (int i = 0; i < binaryPacket.getAttachments().size(); i++) {
-                    ByteBuf attachment = binaryPacket.getAttachments().get(i);
-                    ByteBuf scanValue = Unpooled.copiedBuffer("{\"_placeholder\":true,\"num\":" + i + "}", CharsetUtil.UTF_8);
-                    int pos = PacketEncoder.find(source, scanValue);
+                for (int i = 0; i < attachments.size(); i++) {
+                    ByteBuf attachment = attachments.get(i);
+                    int numLength = digitsCount(i);
+                    int pos = findPlaceholder(source, PLACEHOLDER_PREFIX, i, numLength, PLACEHOLDER_SUFFIX);
                     if (pos == -1) {
-                        scanValue = Unpooled.copiedBuffer("{\"num\":" + i + ",\"_placeholder\":true}", CharsetUtil.UTF_8);
-                        pos = PacketEncoder.find(source, scanValue);
+                        pos = findPlaceholder(source, NUM_PLACEHOLDER_PREFIX, i, numLength, NUM_PLACEHOLDER_SUFFIX);
                         if (pos == -1) {
                             throw new IllegalStateException("Can't find attachment by index: " + i + " in packet source");
                         }
@@ -262,7 +320,8 @@ public class PacketDecoder {
                     slices.add(attachment);
                     slices.add(QUOTES);
 
-                    source.readerIndex(pos + scanValue.readableBytes());
+                    // both placeholder forms have the same length
+                    source.readerIndex(pos + PLACEHOLDER_PREFIX.length + numLength + PLACEHOLDER_SUFFIX.length);
                 }
                 slices.add(source.slice());
 
@@ -275,6 +334,46 @@ public class PacketDecoder {
         return new Packet(PacketType.MESSAGE);
     }
 
+    private static int digitsCount(int number) {
+        int count = 1;
+        while (number >= 10) {
+            number /= 10;
+            count++;
+        }
+        return count;
+    }
+
+    private static int findPlaceholder(ByteBuf source, byte[] prefix, int num, int numLength, byte[] suffix) {
+        int lastIndex = source.writerIndex() - prefix.length - numLength - suffix.length;
+        for (int i = source.readerIndex(); i <= lastIndex; i++) {
+            if (matches(source, i, prefix)
+                    && matchesNumber(source, i + prefix.length, num, numLength)
+                    && matches(source, i + prefix.length + numLength, suffix)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matches(ByteBuf source, int index, byte[] value) {
+        for (int i = 0; i < value.length; i++) {
+            if (source.getByte(index + i) != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesNumber(ByteBuf source, int index, int num, int numLength) {
+        for (int i = index + numLength - 1; i >= index; i--) {
+            if (source.getByte(i) != '0' + num % 10) {
+                return false;
+            }
+            num /= 10;
+        }
+        return true;
+    }
+
     private void parseBody(ClientHead head, ByteBuf frame, Packet packet) throws IOException {
         if (packet.getType() == PacketType.MESSAGE) {
             if (packet.getSubType() == PacketType.CONNECT
@@ -295,7 +394,7 @@ public class PacketDecoder {
             if (packet.getSubType() == PacketType.ACK
                     || packet.getSubType() == PacketType.BINARY_ACK) {
                 ByteBufInputStream in = new ByteBufInputStream(frame);
-                AckCallback<?> callback = ackManager.getCallback(head.getSessionId(), packet.getAckId());
+                AckCallback<?> callback = ackManager.getCallback(head, packet.getAckId());
                 AckArgs args = jsonSupport.readAckArgs(in, callback);
                 packet.setData(args.getArgs());
             }
@@ -318,12 +417,34 @@ public class PacketDecoder {
          */
         int endIndex = frame.bytesBefore((byte)'?');
         if(endIndex > 0){
-            return readString(frame,endIndex);
+            return readNamespaceName(frame,endIndex);
         }
         endIndex = frame.bytesBefore((byte)',');
         if(endIndex > 0){
-            return readString(frame,endIndex);
+            return readNamespaceName(frame,endIndex);
+        }
+        return readNamespaceName(frame, frame.readableBytes());
+    }
+
+    private static class NamespaceName {
+
+        private final String value;
+        private final byte[] bytes;
+
+        NamespaceName(String value) {
+            this.value = value;
+            this.bytes = value.getBytes(CharsetUtil.UTF_8);
         }
-        return readString(frame);
+
+        boolean matches(ByteBuf frame, int size) {
+            return bytes.length == size
+                    && PacketDecoder.matches(frame, frame.readerIndex(), bytes);
+        }
+
+        String getValue() {
+            return value;
+        }
+
     }
+
 }
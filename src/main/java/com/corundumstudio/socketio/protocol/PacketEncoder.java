@@ -38,6 +38,9 @@ public class PacketEncoder {
     private static final byte[] JSONP_START = "]('".getBytes(CharsetUtil.UTF_8);
     private static final byte[] JSONP_END = "');".getBytes(CharsetUtil.UTF_8);
 
+    // string packet marker, up to 10 length digits and delimiter
+    private static final int MAX_BINARY_HEADER_SIZE = 12;
+
     private final JsonSupport jsonSupport;
     private final Configuration configuration;
 
@@ -59,50 +62,78 @@ public class PacketEncoder {
     }
 
     public void encodeJsonP(Integer jsonpIndex, Queue<Packet> packets, ByteBuf out, ByteBufAllocator allocator, int limit) throws IOException {
-        boolean jsonpMode = jsonpIndex != null;
-
-        ByteBuf buf = allocateBuffer(allocator);
-
-        int i = 0;
-        while (true) {
-            Packet packet = packets.poll();
-            if (packet == null || i == limit) {
-                break;
-            }
-
-            ByteBuf packetBuf = allocateBuffer(allocator);
-            encodePacket(packet, packetBuf, allocator, true);
-
-            int packetSize = packetBuf.writerIndex();
-            buf.writeBytes(toChars(packetSize));
-            buf.writeBytes(B64_DELIMITER);
-            buf.writeBytes(packetBuf);
-
-            packetBuf.release();
-
-            i++;
+        encodeJsonP(jsonpIndex, packets, out, allocator, limit, 0);
+    }
 
-            for (ByteBuf attachment : packet.getAttachments()) {
-                ByteBuf encodedBuf = Base64.encode(attachment, Base64Dialect.URL_SAFE);
-                buf.writeBytes(toChars(encodedBuf.readableBytes() + 2));
-                buf.writeBytes(B64_DELIMITER);
-                buf.writeBytes(BINARY_HEADER);
-                buf.writeBytes(encodedBuf);
-            }
-        }
+    /**
+     * Encodes packets from queue until packets or bytes limit is reached.
+     * At least one packet is encoded if queue isn't empty.
+     *
+     * @param jsonpIndex - jsonp index or <code>null</code> for base64 mode
+     * @param packets - packets queue
+     * @param out - output buffer
+     * @param allocator - buffer allocator
+     * @param limit - max packets amount, <code>0</code> - unlimited
+     * @param maxBytes - max payload size, <code>0</code> - unlimited
+     * @return amount of encoded packets
+     * @throws IOException - if packet can't be encoded
+     */
+    public int encodeJsonP(Integer jsonpIndex, Queue<Packet> packets, ByteBuf out, ByteBufAllocator allocator, int limit, int maxBytes) throws IOException {
+        boolean jsonpMode = jsonpIndex != null;
 
         if (jsonpMode) {
             out.writeBytes(JSONP_HEAD);
-            out.writeBytes(toChars(jsonpIndex));
+            writeChars(out, jsonpIndex);
             out.writeBytes(JSONP_START);
         }
 
-        processUtf8(buf, out, jsonpMode);
-        buf.release();
+        int start = out.writerIndex();
+        // length prefix should be known before packet escaping,
+        // so packet is encoded to reusable buffer first
+        ByteBuf packetBuf = allocateBuffer(allocator);
+        int i = 0;
+        try {
+            while (hasCapacity(i, limit, out.writerIndex() - start, maxBytes)) {
+                Packet packet = ConflatedPacket.poll(packets);
+                if (packet == null) {
+                    break;
+                }
+
+                packetBuf.clear();
+                encodePacket(packet, packetBuf, allocator, true);
+
+                writeChars(out, packetBuf.writerIndex());
+                out.writeBytes(B64_DELIMITER);
+                processUtf8(packetBuf, out, jsonpMode);
+
+                i++;
+
+                for (ByteBuf attachment : packet.getAttachments()) {
+                    // attachments of shared packet are read by many recipients,
+                    // so reader index should stay untouched
+                    ByteBuf encodedBuf = Base64.encode(attachment, attachment.readerIndex(),
+                            attachment.readableBytes(), false, Base64Dialect.URL_SAFE);
+                    // base64 content doesn't require escaping
+                    writeChars(out, encodedBuf.readableBytes() + 2);
+                    out.writeBytes(B64_DELIMITER);
+                    out.writeBytes(BINARY_HEADER);
+                    out.writeBytes(encodedBuf);
+                    encodedBuf.release();
+                }
+            }
+        } finally {
+            packetBuf.release();
+        }
 
         if (jsonpMode) {
             out.writeBytes(JSONP_END);
         }
+        return i;
+    }
+
+    private boolean hasCapacity(int packets, int limit, int bytes, int maxBytes) {
+        return (limit <= 0 || packets < limit)
+                && (maxBytes <= 0 || bytes < maxBytes);
     }
 
     private void processUtf8(ByteBuf in, ByteBuf out, boolean jsonpMode) {
@@ -121,10 +152,27 @@ public class PacketEncoder {
     }
 
     public void encodePackets(Queue<Packet> packets, ByteBuf buffer, ByteBufAllocator allocator, int limit) throws IOException {
+        encodePackets(packets, buffer, allocator, limit, 0);
+    }
+
+    /**
+     * Encodes packets from queue until packets or bytes limit is reached.
+     * At least one packet is encoded if queue isn't empty.
+     *
+     * @param packets - packets queue
+     * @param buffer - output buffer
+     * @param allocator - buffer allocator
+     * @param limit - max packets amount, <code>0</code> - unlimited
+     * @param maxBytes - max payload size, <code>0</code> - unlimited
+     * @return amount of encoded packets
+     * @throws IOException - if packet can't be encoded
+     */
+    public int encodePackets(Queue<Packet> packets, ByteBuf buffer, ByteBufAllocator allocator, int limit, int maxBytes) throws IOException {
+        int start = buffer.writerIndex();
         int i = 0;
-        while (true) {
-            Packet packet = packets.poll();
-            if (packet == null || i == limit) {
+        while (hasCapacity(i, limit, buffer.writerIndex() - start, maxBytes)) {
+            Packet packet = ConflatedPacket.poll(packets);
+            if (packet == null) {
                 break;
             }
             encodePacket(packet, buffer, allocator, false);
@@ -133,12 +181,13 @@ public class PacketEncoder {
 
             for (ByteBuf attachment : packet.getAttachments()) {
                 buffer.writeByte(1);
-                buffer.writeBytes(longToBytes(attachment.readableBytes() + 1));
+                writeDigits(buffer, attachment.readableBytes() + 1, 0);
                 buffer.writeByte(0xff);
                 buffer.writeByte(4);
-                buffer.writeBytes(attachment);
+                buffer.writeBytes(attachment, attachment.readerIndex(), attachment.readableBytes());
             }
         }
+        return i;
     }
 
     private byte toChar(int number) {
@@ -216,8 +265,7 @@ public class PacketEncoder {
     }
 
     public static byte[] longToBytes(long number) {
-        // TODO optimize
-        int length = (int)(Math.log10(number)+1);
+        int length = digitsAmount(number);
         byte[] res = new byte[length];
         int i = length;
         while (number > 0) {
@@ -227,107 +275,206 @@ public class PacketEncoder {
         return res;
     }
 
+    private static int digitsAmount(long number) {
+        int length = 1;
+        while (number >= 10) {
+            number /= 10;
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Writes decimal digits of non-negative number without allocation.
+     *
+     * @param buf - output buffer
+     * @param number - non-negative number
+     * @param zero - value of zero digit, <code>'0'</code> for chars or <code>0</code> for raw digits
+     */
+    static void writeDigits(ByteBuf buf, long number, int zero) {
+        int length = digitsAmount(number);
+        buf.ensureWritable(length);
+        int index = buf.writerIndex() + length;
+        do {
+            buf.setByte(--index, zero + (int) (number % 10));
+            number /= 10;
+        } while (number > 0);
+        buf.writerIndex(buf.writerIndex() + length);
+    }
+
+    static void writeChars(ByteBuf buf, long number) {
+        writeDigits(buf, number, '0');
+    }
+
+    /**
+     * Encodes packet to websocket frame content.
+     * Frame of packet marked by {@link Packet#setEncodeOnce} is encoded
+     * only once and its content is shared between all recipients.
+     *
+     * @param packet - packet to encode
+     * @param allocator - buffer allocator
+     * @return frame content
+     * @throws IOException - in case of encoding error
+     */
+    public ByteBuf encodePacket(Packet packet, ByteBufAllocator allocator) throws IOException {
+        if (packet.isEncodeOnce()) {
+            return getEncodedFrame(packet, allocator).duplicate();
+        }
+
+        ByteBuf out = allocateBuffer(allocator);
+        encodeFrame(packet, out, allocator);
+        return out;
+    }
+
+    private ByteBuf getEncodedFrame(Packet packet, ByteBufAllocator allocator) throws IOException {
+        ByteBuf frame = packet.getEncodedFrame();
+        if (frame != null) {
+            return frame;
+        }
+
+        synchronized (packet) {
+            frame = packet.getEncodedFrame();
+            if (frame == null) {
+                ByteBuf buf = allocateBuffer(allocator);
+                try {
+                    encodeFrame(packet, buf, allocator);
+                    byte[] bytes = new byte[buf.readableBytes()];
+                    buf.readBytes(bytes);
+                    // shared frame is never released, so its duplicates
+                    // could be written to any amount of channels
+                    frame = Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(bytes));
+                    packet.setEncodedFrame(frame);
+                } finally {
+                    buf.release();
+                }
+            }
+        }
+        return frame;
+    }
+
     public void encodePacket(Packet packet, ByteBuf buffer, ByteBufAllocator allocator, boolean binary) throws IOException {
-        ByteBuf buf = buffer;
-        if (!binary) {
-            buf = allocateBuffer(allocator);
+        if (packet.isEncodeOnce()) {
+            ByteBuf frame = getEncodedFrame(packet, allocator);
+            if (!binary) {
+                writeBinaryHeader(buffer, frame.readableBytes());
+            }
+            buffer.writeBytes(frame, frame.readerIndex(), frame.readableBytes());
+            return;
         }
-        byte type = toChar(packet.getType().getValue());
-        buf.writeByte(type);
 
+        if (binary) {
+            encodeFrame(packet, buffer, allocator);
+            return;
+        }
+
+        // frame is encoded right after space reserved for the longest header
+        int headerIndex = buffer.writerIndex();
+        buffer.writeZero(MAX_BINARY_HEADER_SIZE);
+        int frameIndex = buffer.writerIndex();
         try {
-            switch (packet.getType()) {
+            encodeFrame(packet, buffer, allocator);
+        } finally {
+            // we need to write a buffer in any case
+            int length = buffer.writerIndex() - frameIndex;
+            buffer.writerIndex(headerIndex);
+            writeBinaryHeader(buffer, length);
+            if (buffer.writerIndex() < frameIndex) {
+                // moves frame to the end of actual header, source is always
+                // after destination so overlapping copy is safe
+                buffer.setBytes(buffer.writerIndex(), buffer, frameIndex, length);
+            }
+            buffer.writerIndex(buffer.writerIndex() + length);
+        }
+    }
 
-                case PONG: {
-                    buf.writeBytes(packet.getData().toString().getBytes(CharsetUtil.UTF_8));
-                    break;
-                }
+    private void writeBinaryHeader(ByteBuf buffer, int length) {
+        buffer.writeByte(0);
+        writeDigits(buffer, length, 0);
+        buffer.writeByte(0xff);
+    }
 
-                case OPEN: {
-                    ByteBufOutputStream out = new ByteBufOutputStream(buf);
-                    jsonSupport.writeValue(out, packet.getData());
-                    break;
-                }
+    private void encodeFrame(Packet packet, ByteBuf buf, ByteBufAllocator allocator) throws IOException {
+        byte type = toChar(packet.getType().getValue());
+        buf.writeByte(type);
 
-                case MESSAGE: {
+        switch (packet.getType()) {
 
-                    ByteBuf encBuf = null;
+            case PONG: {
+                buf.writeBytes(packet.getData().toString().getBytes(CharsetUtil.UTF_8));
+                break;
+            }
 
-                    if (packet.getSubType() == PacketType.ERROR) {
-                        encBuf = allocateBuffer(allocator);
+            case OPEN: {
+                ByteBufOutputStream out = new ByteBufOutputStream(buf);
+                jsonSupport.writeValue(out, packet.getData());
+                break;
+            }
 
-                        ByteBufOutputStream out = new ByteBufOutputStream(encBuf);
-                        jsonSupport.writeValue(out, packet.getData());
-                    }
+            case MESSAGE: {
 
-                    if (packet.getSubType() == PacketType.EVENT
-                            || packet.getSubType() == PacketType.ACK) {
+                ByteBuf encBuf = null;
 
-                        List<Object> values = new ArrayList<Object>();
-                        if (packet.getSubType() == PacketType.EVENT) {
-                            values.add(packet.getName());
-                        }
+                if (packet.getSubType() == PacketType.ERROR) {
+                    encBuf = allocateBuffer(allocator);
 
-                        encBuf = allocateBuffer(allocator);
+                    ByteBufOutputStream out = new ByteBufOutputStream(encBuf);
+                    jsonSupport.writeValue(out, packet.getData());
+                }
 
-                        List<Object> args = packet.getData();
-                        values.addAll(args);
-                        ByteBufOutputStream out = new ByteBufOutputStream(encBuf);
-                        jsonSupport.writeValue(out, values);
+                if (packet.getSubType() == PacketType.EVENT
+                        || packet.getSubType() == PacketType.ACK) {
 
-                        if (!jsonSupport.getArrays().isEmpty()) {
-                            packet.initAttachments(jsonSupport.getArrays().size());
-                            for (byte[] array : jsonSupport.getArrays()) {
-                                packet.addAttachment(Unpooled.wrappedBuffer(array));
-                            }
-                            packet.setSubType(packet.getSubType() == PacketType.ACK
-                                    ? PacketType.BINARY_ACK : PacketType.BINARY_EVENT);
-                        }
+                    List<Object> values = new ArrayList<Object>();
+                    if (packet.getSubType() == PacketType.EVENT) {
+                        values.add(packet.getName());
                     }
 
-                    byte subType = toChar(packet.getSubType().getValue());
-                    buf.writeByte(subType);
+                    encBuf = allocateBuffer(allocator);
 
-                    if (packet.hasAttachments()) {
-                        byte[] ackId = toChars(packet.getAttachments().size());
-                        buf.writeBytes(ackId);
-                        buf.writeByte('-');
-                    }
+                    List<Object> args = packet.getData();
+                    values.addAll(args);
+                    ByteBufOutputStream out = new ByteBufOutputStream(encBuf);
+                    jsonSupport.writeValue(out, values);
 
-                    if (packet.getSubType() == PacketType.CONNECT) {
-                        if (!packet.getNsp().isEmpty()) {
-                            buf.writeBytes(packet.getNsp().getBytes(CharsetUtil.UTF_8));
-                        }
-                    } else {
-                        if (!packet.getNsp().isEmpty()) {
-                            buf.writeBytes(packet.getNsp().getBytes(CharsetUtil.UTF_8));
-                            buf.writeByte(',');
+                    if (!jsonSupport.getArrays().isEmpty()) {
+                        packet.initAttachments(jsonSupport.getArrays().size());
+                        for (byte[] array : jsonSupport.getArrays()) {
+                            packet.addAttachment(Unpooled.wrappedBuffer(array));
                         }
+                        packet.setSubType(packet.getSubType() == PacketType.ACK
+                                ? PacketType.BINARY_ACK : PacketType.BINARY_EVENT);
                     }
+                }
 
-                    if (packet.getAckId() != null) {
-                        byte[] ackId = toChars(packet.getAckId());
-                        buf.writeBytes(ackId);
-                    }
+                byte subType = toChar(packet.getSubType().getValue());
+                buf.writeByte(subType);
+
+                if (packet.hasAttachments()) {
+                    writeChars(buf, packet.getAttachments().size());
+                    buf.writeByte('-');
+                }
 
-                    if (encBuf != null) {
-                        buf.writeBytes(encBuf);
-                        encBuf.release();
+                if (packet.getSubType() == PacketType.CONNECT) {
+                    if (!packet.getNsp().isEmpty()) {
+                        buf.writeBytes(packet.getNsp().getBytes(CharsetUtil.UTF_8));
                     }
+                } else {
+                    if (!packet.getNsp().isEmpty()) {
+                        buf.writeBytes(packet.getNsp().getBytes(CharsetUtil.UTF_8));
+                        buf.writeByte(',');
+                    }
+                }
 
-                    break;
+                if (packet.getAckId() != null) {
+                    writeChars(buf, packet.getAckId());
                 }
-            }
-        } finally {
-            // we need to write a buffer in any case
-            if (!binary) {
-                buffer.writeByte(0);
-                int length = buf.writerIndex();
-                buffer.writeBytes(longToBytes(length));
-                buffer.writeByte(0xff);
-                buffer.writeBytes(buf);
 
-                buf.release();
+                if (encBuf != null) {
+                    buf.writeBytes(encBuf);
+                    encBuf.release();
+                }
+
+                break;
             }
         }
     }
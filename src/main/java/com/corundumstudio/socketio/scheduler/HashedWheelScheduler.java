@@ -67,14 +67,15 @@ public class HashedWheelScheduler implements CancelableScheduler {
     public void scheduleCallback(final SchedulerKey key, final Runnable runnable, long delay, TimeUnit unit) {
         Timeout timeout = executorService.newTimeout(new TimerTask() {
             @Override
-            public void run(Timeout timeout) throws Exception {
+            public void run(final Timeout timeout) throws Exception {
                 ctx.executor().execute(new Runnable() {
                     @Override
                     public void run() {
                         try {
                             runnable.run();
                         } finally {
-                            scheduledFutures.remove(key);
+                            // task may have been rescheduled with same key
+                            scheduledFutures.remove(key, timeout);
                         }
                     }
                 });
@@ -90,11 +91,12 @@ public class HashedWheelScheduler implements CancelableScheduler {
     public void schedule(final SchedulerKey key, final Runnable runnable, long delay, TimeUnit unit) {
         Timeout timeout = executorService.newTimeout(new TimerTask() {
             @Override
-            public void run(Timeout timeout) throws Exception {
+            public void run(final Timeout timeout) throws Exception {
                 try {
                     runnable.run();
                 } finally {
-                    scheduledFutures.remove(key);
+                    // task may have been rescheduled with same key
+                    scheduledFutures.remove(key, timeout);
                 }
             }
         }, delay, unit);
@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.scheduler;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.internal.PlatformDependent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits timeouts between several {@link HashedWheelTimeoutScheduler}
+ * by key hash. Each shard has own timer thread and timeouts map,
+ * so concurrent rescheduling of different sessions doesn't contend.
+ *
+ * Timeouts with the same key always belong to the same shard.
+ * <p>
+ * Keyed callbacks run on executor of the last context passed to
+ * {@link #update(ChannelHandlerContext)}, same as in {@link HashedWheelTimeoutScheduler},
+ * which is not necessarily the event loop of the session.
+ */
+public class ShardedTimeoutScheduler implements CancelableScheduler {
+
+    private final HashedWheelTimeoutScheduler[] shards;
+
+    public ShardedTimeoutScheduler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ShardedTimeoutScheduler(int shardsAmount) {
+        if (shardsAmount < 1) {
+            throw new IllegalArgumentException("shardsAmount should be positive");
+        }
+        shards = new HashedWheelTimeoutScheduler[shardsAmount];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new HashedWheelTimeoutScheduler(new DefaultThreadFactory("socketio-scheduler-" + i));
+        }
+    }
+
+    int shardIndex(SchedulerKey key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return (hash & Integer.MAX_VALUE) % shards.length;
+    }
+
+    private CancelableScheduler shard(SchedulerKey key) {
+        return shards[shardIndex(key)];
+    }
+
+    @Override
+    public void update(ChannelHandlerContext ctx) {
+        for (HashedWheelTimeoutScheduler shard : shards) {
+            shard.update(ctx);
+        }
+    }
+
+    @Override
+    public void cancel(SchedulerKey key) {
+        shard(key).cancel(key);
+    }
+
+    @Override
+    public void scheduleCallback(SchedulerKey key, Runnable runnable, long delay, TimeUnit unit) {
+        shard(key).scheduleCallback(key, runnable, delay, unit);
+    }
+
+    @Override
+    public void schedule(Runnable runnable, long delay, TimeUnit unit) {
+        int index = PlatformDependent.threadLocalRandom().nextInt(shards.length);
+        shards[index].schedule(runnable, delay, unit);
+    }
+
+    @Override
+    public void schedule(SchedulerKey key, Runnable runnable, long delay, TimeUnit unit) {
+        shard(key).schedule(key, runnable, delay, unit);
+    }
+
+    @Override
+    public void shutdown() {
+        for (HashedWheelTimeoutScheduler shard : shards) {
+            shard.shutdown();
+        }
+    }
+
+}
@@ -17,10 +17,15 @@ package com.corundumstudio.socketio.store;
 
 import io.netty.util.internal.PlatformDependent;
 
+import java.io.IOException;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.corundumstudio.socketio.store.pubsub.PubSubCodec;
 import com.corundumstudio.socketio.store.pubsub.PubSubListener;
 import com.corundumstudio.socketio.store.pubsub.PubSubMessage;
 import com.corundumstudio.socketio.store.pubsub.PubSubStore;
@@ -33,37 +38,75 @@ import com.hazelcast.core.MessageListener;
 
 public class HazelcastPubSubStore implements PubSubStore {
 
+    private static final Logger log = LoggerFactory.getLogger(HazelcastPubSubStore.class);
+
     private final HazelcastInstance hazelcastPub;
     private final HazelcastInstance hazelcastSub;
     private final Long nodeId;
+    private final PubSubCodec codec;
 
     private final ConcurrentMap<String, Queue<String>> map = PlatformDependent.newConcurrentHashMap();
 
     public HazelcastPubSubStore(HazelcastInstance hazelcastPub, HazelcastInstance hazelcastSub, Long nodeId) {
+        this(hazelcastPub, hazelcastSub, nodeId, null);
+    }
+
+    public HazelcastPubSubStore(HazelcastInstance hazelcastPub, HazelcastInstance hazelcastSub, Long nodeId, PubSubCodec codec) {
         this.hazelcastPub = hazelcastPub;
         this.hazelcastSub = hazelcastSub;
         this.nodeId = nodeId;
+        this.codec = codec;
     }
 
     @Override
     public void publish(PubSubType type, PubSubMessage msg) {
         msg.setNodeId(nodeId);
-        hazelcastPub.getTopic(type.toString()).publish(msg);
+        if (codec == null) {
+            hazelcastPub.getTopic(type.toString()).publish(msg);
+            return;
+        }
+
+        try {
+            hazelcastPub.getTopic(type.toString()).publish(codec.encode(msg));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     @Override
     public <T extends PubSubMessage> void subscribe(PubSubType type, final PubSubListener<T> listener, Class<T> clazz) {
-        String name = type.toString();
-        ITopic<T> topic = hazelcastSub.getTopic(name);
-        String regId = topic.addMessageListener(new MessageListener<T>() {
-            @Override
-            public void onMessage(Message<T> message) {
-                PubSubMessage msg = message.getMessageObject();
-                if (!nodeId.equals(msg.getNodeId())) {
-                    listener.onMessage(message.getMessageObject());
+        final String name = type.toString();
+        String regId;
+        if (codec == null) {
+            ITopic<T> topic = hazelcastSub.getTopic(name);
+            regId = topic.addMessageListener(new MessageListener<T>() {
+                @Override
+                public void onMessage(Message<T> message) {
+                    PubSubMessage msg = message.getMessageObject();
+                    if (!nodeId.equals(msg.getNodeId())) {
+                        listener.onMessage(message.getMessageObject());
+                    }
                 }
-            }
-        });
+            });
+        } else {
+            ITopic<byte[]> topic = hazelcastSub.getTopic(name);
+            regId = topic.addMessageListener(new MessageListener<byte[]>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public void onMessage(Message<byte[]> message) {
+                    PubSubMessage msg;
+                    try {
+                        msg = codec.decode(message.getMessageObject());
+                    } catch (IOException e) {
+                        log.error("Can't decode message from topic: " + name, e);
+                        return;
+                    }
+                    if (!nodeId.equals(msg.getNodeId())) {
+                        listener.onMessage((T) msg);
+                    }
+                }
+            });
+        }
 
         Queue<String> list = map.get(name);
         if (list == null) {
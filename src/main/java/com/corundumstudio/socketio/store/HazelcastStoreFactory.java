@@ -19,6 +19,7 @@ import java.util.Map;
 import java.util.UUID;
 
 import com.corundumstudio.socketio.store.pubsub.BaseStoreFactory;
+import com.corundumstudio.socketio.store.pubsub.PubSubConfig;
 import com.corundumstudio.socketio.store.pubsub.PubSubStore;
 import com.hazelcast.client.HazelcastClient;
 import com.hazelcast.core.HazelcastInstance;
@@ -40,19 +41,28 @@ public class HazelcastStoreFactory extends BaseStoreFactory {
     }
 
     public HazelcastStoreFactory(HazelcastInstance instance) {
+        this(instance, new PubSubConfig());
+    }
+
+    public HazelcastStoreFactory(HazelcastInstance instance, PubSubConfig pubSubConfig) {
         this.hazelcastClient = instance;
         this.hazelcastPub = instance;
         this.hazelcastSub = instance;
 
-        this.pubSubStore = new HazelcastPubSubStore(hazelcastPub, hazelcastSub, getNodeId());
+        this.pubSubStore = createPubSubStore(new HazelcastPubSubStore(hazelcastPub, hazelcastSub, getNodeId(), pubSubConfig.getCodec()), pubSubConfig);
     }
 
     public HazelcastStoreFactory(HazelcastInstance hazelcastClient, HazelcastInstance hazelcastPub, HazelcastInstance hazelcastSub) {
+        this(hazelcastClient, hazelcastPub, hazelcastSub, new PubSubConfig());
+    }
+
+    public HazelcastStoreFactory(HazelcastInstance hazelcastClient, HazelcastInstance hazelcastPub, HazelcastInstance hazelcastSub,
+                                    PubSubConfig pubSubConfig) {
         this.hazelcastClient = hazelcastClient;
         this.hazelcastPub = hazelcastPub;
         this.hazelcastSub = hazelcastSub;
 
-        this.pubSubStore = new HazelcastPubSubStore(hazelcastPub, hazelcastSub, getNodeId());
+        this.pubSubStore = createPubSubStore(new HazelcastPubSubStore(hazelcastPub, hazelcastSub, getNodeId(), pubSubConfig.getCodec()), pubSubConfig);
     }
 
     @Override
@@ -62,6 +72,7 @@ public class HazelcastStoreFactory extends BaseStoreFactory {
 
     @Override
     public void shutdown() {
+        pubSubStore.shutdown();
         hazelcastClient.shutdown();
         hazelcastPub.shutdown();
         hazelcastSub.shutdown();
@@ -15,6 +15,7 @@
  */
 package com.corundumstudio.socketio.store;
 
+import java.io.IOException;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
@@ -22,7 +23,11 @@ import java.util.concurrent.ConcurrentMap;
 import org.redisson.api.RTopic;
 import org.redisson.api.RedissonClient;
 import org.redisson.api.listener.MessageListener;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import com.corundumstudio.socketio.store.pubsub.PubSubCodec;
 import com.corundumstudio.socketio.store.pubsub.PubSubListener;
 import com.corundumstudio.socketio.store.pubsub.PubSubMessage;
 import com.corundumstudio.socketio.store.pubsub.PubSubStore;
@@ -32,36 +37,81 @@ import io.netty.util.internal.PlatformDependent;
 
 public class RedissonPubSubStore implements PubSubStore {
 
+    private static final Logger log = LoggerFactory.getLogger(RedissonPubSubStore.class);
+
     private final RedissonClient redissonPub;
     private final RedissonClient redissonSub;
     private final Long nodeId;
+    private final PubSubCodec codec;
 
     private final ConcurrentMap<String, Queue<Integer>> map = PlatformDependent.newConcurrentHashMap();
 
     public RedissonPubSubStore(RedissonClient redissonPub, RedissonClient redissonSub, Long nodeId) {
+        this(redissonPub, redissonSub, nodeId, null);
+    }
+
+    public RedissonPubSubStore(RedissonClient redissonPub, RedissonClient redissonSub, Long nodeId, PubSubCodec codec) {
         this.redissonPub = redissonPub;
         this.redissonSub = redissonSub;
         this.nodeId = nodeId;
+        this.codec = codec;
+    }
+
+    private RTopic getTopic(RedissonClient redisson, String name) {
+        if (codec != null) {
+            return redisson.getTopic(name, ByteArrayCodec.INSTANCE);
+        }
+        return redisson.getTopic(name);
     }
 
     @Override
     public void publish(PubSubType type, PubSubMessage msg) {
         msg.setNodeId(nodeId);
-        redissonPub.getTopic(type.toString()).publish(msg);
+        RTopic topic = getTopic(redissonPub, type.toString());
+        if (codec == null) {
+            topic.publish(msg);
+            return;
+        }
+
+        try {
+            topic.publish(codec.encode(msg));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     @Override
     public <T extends PubSubMessage> void subscribe(PubSubType type, final PubSubListener<T> listener, Class<T> clazz) {
         String name = type.toString();
-        RTopic topic = redissonSub.getTopic(name);
-        int regId = topic.addListener(PubSubMessage.class, new MessageListener<PubSubMessage>() {
-            @Override
-            public void onMessage(CharSequence channel, PubSubMessage msg) {
-                if (!nodeId.equals(msg.getNodeId())) {
-                    listener.onMessage((T)msg);
+        RTopic topic = getTopic(redissonSub, name);
+        int regId;
+        if (codec == null) {
+            regId = topic.addListener(PubSubMessage.class, new MessageListener<PubSubMessage>() {
+                @Override
+                public void onMessage(CharSequence channel, PubSubMessage msg) {
+                    if (!nodeId.equals(msg.getNodeId())) {
+                        listener.onMessage((T)msg);
+                    }
                 }
-            }
-        });
+            });
+        } else {
+            regId = topic.addListener(byte[].class, new MessageListener<byte[]>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public void onMessage(CharSequence channel, byte[] data) {
+                    PubSubMessage msg;
+                    try {
+                        msg = codec.decode(data);
+                    } catch (IOException e) {
+                        log.error("Can't decode message from channel: " + channel, e);
+                        return;
+                    }
+                    if (!nodeId.equals(msg.getNodeId())) {
+                        listener.onMessage((T)msg);
+                    }
+                }
+            });
+        }
 
         Queue<Integer> list = map.get(name);
         if (list == null) {
@@ -78,7 +128,7 @@ public class RedissonPubSubStore implements PubSubStore {
     public void unsubscribe(PubSubType type) {
         String name = type.toString();
         Queue<Integer> regIds = map.remove(name);
-        RTopic topic = redissonSub.getTopic(name);
+        RTopic topic = getTopic(redissonSub, name);
         for (Integer id : regIds) {
             topic.removeListener(id);
         }
@@ -22,6 +22,7 @@ import org.redisson.Redisson;
 import org.redisson.api.RedissonClient;
 
 import com.corundumstudio.socketio.store.pubsub.BaseStoreFactory;
+import com.corundumstudio.socketio.store.pubsub.PubSubConfig;
 import com.corundumstudio.socketio.store.pubsub.PubSubStore;
 
 public class RedissonStoreFactory extends BaseStoreFactory {
@@ -37,19 +38,27 @@ public class RedissonStoreFactory extends BaseStoreFactory {
     }
 
     public RedissonStoreFactory(RedissonClient redisson) {
+        this(redisson, new PubSubConfig());
+    }
+
+    public RedissonStoreFactory(RedissonClient redisson, PubSubConfig pubSubConfig) {
         this.redisClient = redisson;
         this.redisPub = redisson;
         this.redisSub = redisson;
 
-        this.pubSubStore = new RedissonPubSubStore(redisPub, redisSub, getNodeId());
+        this.pubSubStore = createPubSubStore(new RedissonPubSubStore(redisPub, redisSub, getNodeId(), pubSubConfig.getCodec()), pubSubConfig);
     }
 
     public RedissonStoreFactory(Redisson redisClient, Redisson redisPub, Redisson redisSub) {
+        this(redisClient, redisPub, redisSub, new PubSubConfig());
+    }
+
+    public RedissonStoreFactory(Redisson redisClient, Redisson redisPub, Redisson redisSub, PubSubConfig pubSubConfig) {
         this.redisClient = redisClient;
         this.redisPub = redisPub;
         this.redisSub = redisSub;
 
-        this.pubSubStore = new RedissonPubSubStore(redisPub, redisSub, getNodeId());
+        this.pubSubStore = createPubSubStore(new RedissonPubSubStore(redisPub, redisSub, getNodeId(), pubSubConfig.getCodec()), pubSubConfig);
     }
 
     @Override
@@ -64,6 +73,7 @@ public class RedissonStoreFactory extends BaseStoreFactory {
 
     @Override
     public void shutdown() {
+        pubSubStore.shutdown();
         redisClient.shutdown();
         redisPub.shutdown();
         redisSub.shutdown();
@@ -20,6 +20,7 @@ import org.slf4j.LoggerFactory;
 
 import com.corundumstudio.socketio.handler.AuthorizeHandler;
 import com.corundumstudio.socketio.handler.ClientHead;
+import com.corundumstudio.socketio.namespace.Namespace;
 import com.corundumstudio.socketio.namespace.NamespacesHub;
 import com.corundumstudio.socketio.protocol.JsonSupport;
 import com.corundumstudio.socketio.store.StoreFactory;
@@ -30,12 +31,26 @@ public abstract class BaseStoreFactory implements StoreFactory {
 
     private Long nodeId = (long) (Math.random() * 1000000);
 
+    private PubSubCodec pubSubCodec;
+
     protected Long getNodeId() {
         return nodeId;
     }
 
+    protected PubSubStore createPubSubStore(PubSubStore pubSubStore, PubSubConfig pubSubConfig) {
+        this.pubSubCodec = pubSubConfig.getCodec();
+        if (pubSubConfig.isPublishBatching()) {
+            return new BatchingPubSubStore(pubSubStore, pubSubConfig);
+        }
+        return pubSubStore;
+    }
+
     @Override
     public void init(final NamespacesHub namespacesHub, final AuthorizeHandler authorizeHandler, JsonSupport jsonSupport) {
+        if (pubSubCodec != null) {
+            pubSubCodec.init(jsonSupport);
+        }
+
         pubSubStore().subscribe(PubSubType.DISCONNECT, new PubSubListener<DisconnectMessage>() {
             @Override
             public void onMessage(DisconnectMessage msg) {
@@ -56,7 +71,12 @@ public abstract class BaseStoreFactory implements StoreFactory {
             public void onMessage(DispatchMessage msg) {
                 String name = msg.getRoom();
 
-                namespacesHub.get(msg.getNamespace()).dispatch(name, msg.getPacket());
+                Namespace namespace = namespacesHub.get(msg.getNamespace());
+                if (namespace == null) {
+                    // namespace isn't registered on this node
+                    return;
+                }
+                namespace.dispatch(name, msg.getPacket());
                 log.debug("{} packet: {}", PubSubType.DISPATCH, msg.getPacket());
             }
         }, DispatchMessage.class);
@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.store.pubsub;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Envelope of messages published together by {@link BatchingPubSubStore}.
+ *
+ */
+public class BatchMessage extends PubSubMessage {
+
+    private static final long serialVersionUID = 3871823610212867744L;
+
+    private List<PubSubType> types;
+    private List<PubSubMessage> messages;
+
+    public BatchMessage() {
+    }
+
+    public BatchMessage(int size) {
+        this.types = new ArrayList<PubSubType>(size);
+        this.messages = new ArrayList<PubSubMessage>(size);
+    }
+
+    public void add(PubSubType type, PubSubMessage message) {
+        types.add(type);
+        messages.add(message);
+    }
+
+    public List<PubSubType> getTypes() {
+        return types;
+    }
+
+    public List<PubSubMessage> getMessages() {
+        return messages;
+    }
+
+}
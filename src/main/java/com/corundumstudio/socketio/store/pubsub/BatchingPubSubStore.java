@@ -0,0 +1,294 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.store.pubsub;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Publishes messages of underlying store asynchronously.
+ * <p>
+ * Messages are put to bounded queue and published from dedicated
+ * thread in {@link BatchMessage} envelopes, so caller thread,
+ * usually event loop, never waits for network round-trip.
+ * Once queue is full only {@link PubSubType#DISPATCH} messages are dropped,
+ * others are put to unbounded overflow queue, since losing them breaks room
+ * membership and session state of cluster nodes. Overflow queue is published
+ * after bounded one and takes all new messages until it's drained, so
+ * messages are published in order. Messages published after
+ * {@link #shutdown()} are passed to underlying store directly.
+ *
+ * @see PubSubConfig#setPublishBatching(boolean)
+ */
+public class BatchingPubSubStore implements PubSubStore {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchingPubSubStore.class);
+
+    private static final long POLL_TIMEOUT = 100;
+    private static final long SHUTDOWN_TIMEOUT = 5000;
+
+    private static class Entry {
+
+        final PubSubType type;
+        final PubSubMessage message;
+
+        Entry(PubSubType type, PubSubMessage message) {
+            this.type = type;
+            this.message = message;
+        }
+
+    }
+
+    private final PubSubStore delegate;
+    private final int batchSize;
+    private final long batchDelayNanos;
+    private final BlockingQueue<Entry> queue;
+    // messages aren't dropped, newer than any message of bounded queue
+    private final Queue<Entry> overflow = new ConcurrentLinkedQueue<Entry>();
+
+    private final ConcurrentMap<PubSubType, Queue<PubSubListener<PubSubMessage>>> listeners = PlatformDependent.newConcurrentHashMap();
+    private final AtomicBoolean batchSubscribed = new AtomicBoolean();
+
+    private final AtomicLong publishedMessages = new AtomicLong();
+    private final AtomicLong publishedBatches = new AtomicLong();
+    private final AtomicLong droppedMessages = new AtomicLong();
+
+    private final Thread publisher;
+    private volatile boolean running = true;
+
+    public BatchingPubSubStore(PubSubStore delegate, PubSubConfig config) {
+        this.delegate = delegate;
+        this.batchSize = Math.max(1, config.getPublishBatchSize());
+        this.batchDelayNanos = TimeUnit.MILLISECONDS.toNanos(config.getPublishBatchDelay());
+        this.queue = new ArrayBlockingQueue<Entry>(config.getPublishQueueSize());
+
+        publisher = new DefaultThreadFactory("socketio-pubsub-publisher", true).newThread(new Runnable() {
+            @Override
+            public void run() {
+                publishLoop();
+            }
+        });
+        publisher.start();
+    }
+
+    @Override
+    public void publish(PubSubType type, PubSubMessage msg) {
+        if (!running) {
+            delegate.publish(type, msg);
+            return;
+        }
+
+        Entry entry = new Entry(type, msg);
+        // new messages can't overtake overflowed ones
+        if (!overflow.isEmpty() || !queue.offer(entry)) {
+            if (type != PubSubType.DISPATCH) {
+                overflow.add(entry);
+                publishIfStopped(entry);
+                return;
+            }
+
+            long dropped = droppedMessages.incrementAndGet();
+            if (dropped == 1 || dropped % 10000 == 0) {
+                log.warn("Publish queue is full. {} messages dropped so far", dropped);
+            }
+            return;
+        }
+
+        publishIfStopped(entry);
+    }
+
+    private void publishIfStopped(Entry entry) {
+        // publisher may have already stopped
+        if (!running && (queue.remove(entry) || overflow.remove(entry))) {
+            delegate.publish(entry.type, entry.message);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends PubSubMessage> void subscribe(PubSubType type, PubSubListener<T> listener, Class<T> clazz) {
+        // messages of nodes which don't use batching
+        delegate.subscribe(type, listener, clazz);
+
+        Queue<PubSubListener<PubSubMessage>> typeListeners = listeners.get(type);
+        if (typeListeners == null) {
+            typeListeners = new ConcurrentLinkedQueue<PubSubListener<PubSubMessage>>();
+            Queue<PubSubListener<PubSubMessage>> oldListeners = listeners.putIfAbsent(type, typeListeners);
+            if (oldListeners != null) {
+                typeListeners = oldListeners;
+            }
+        }
+        typeListeners.add((PubSubListener<PubSubMessage>) listener);
+
+        if (batchSubscribed.compareAndSet(false, true)) {
+            delegate.subscribe(PubSubType.BATCH, new PubSubListener<BatchMessage>() {
+                @Override
+                public void onMessage(BatchMessage batch) {
+                    onBatch(batch);
+                }
+            }, BatchMessage.class);
+        }
+    }
+
+    private void onBatch(BatchMessage batch) {
+        for (int i = 0; i < batch.getMessages().size(); i++) {
+            PubSubMessage msg = batch.getMessages().get(i);
+            msg.setNodeId(batch.getNodeId());
+
+            Queue<PubSubListener<PubSubMessage>> typeListeners = listeners.get(batch.getTypes().get(i));
+            if (typeListeners == null) {
+                continue;
+            }
+            for (PubSubListener<PubSubMessage> listener : typeListeners) {
+                try {
+                    listener.onMessage(msg);
+                } catch (Exception e) {
+                    log.error("Can't handle " + batch.getTypes().get(i) + " message", e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void unsubscribe(PubSubType type) {
+        delegate.unsubscribe(type);
+        listeners.remove(type);
+    }
+
+    private void publishLoop() {
+        List<Entry> batch = new ArrayList<Entry>(batchSize);
+        while (running || !queue.isEmpty() || !overflow.isEmpty()) {
+            try {
+                drain(batch);
+                if (batch.isEmpty()) {
+                    Entry first = queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                }
+
+                long deadline = System.nanoTime() + batchDelayNanos;
+                while (batch.size() < batchSize) {
+                    drain(batch);
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() == batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    Entry entry = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (entry == null) {
+                        break;
+                    }
+                    batch.add(entry);
+                }
+
+                publishBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Can't publish messages batch", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void drain(List<Entry> batch) {
+        queue.drainTo(batch, batchSize - batch.size());
+        // overflow is taken only once bounded queue is empty
+        while (batch.size() < batchSize) {
+            Entry entry = overflow.poll();
+            if (entry == null) {
+                break;
+            }
+            batch.add(entry);
+        }
+    }
+
+    private void publishBatch(List<Entry> batch) {
+        BatchMessage msg = new BatchMessage(batch.size());
+        for (Entry entry : batch) {
+            msg.add(entry.type, entry.message);
+        }
+        delegate.publish(PubSubType.BATCH, msg);
+
+        publishedMessages.addAndGet(batch.size());
+        publishedBatches.incrementAndGet();
+    }
+
+    /**
+     * Amount of published messages
+     *
+     * @return messages amount
+     */
+    public long getPublishedMessages() {
+        return publishedMessages.get();
+    }
+
+    /**
+     * Amount of published envelopes
+     *
+     * @return envelopes amount
+     */
+    public long getPublishedBatches() {
+        return publishedBatches.get();
+    }
+
+    /**
+     * Amount of dispatch messages dropped due to full queue
+     *
+     * @return messages amount
+     */
+    public long getDroppedMessages() {
+        return droppedMessages.get();
+    }
+
+    /**
+     * Amount of messages waiting for publishing
+     *
+     * @return messages amount
+     */
+    public int getPendingMessages() {
+        return queue.size() + overflow.size();
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+        try {
+            publisher.join(SHUTDOWN_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        delegate.shutdown();
+    }
+
+}
@@ -0,0 +1,351 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.store.pubsub;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.UUID;
+
+import com.corundumstudio.socketio.Configuration;
+import com.corundumstudio.socketio.protocol.JsonSupport;
+import com.corundumstudio.socketio.protocol.Packet;
+import com.corundumstudio.socketio.protocol.PacketEncoder;
+import com.corundumstudio.socketio.protocol.PacketType;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+
+/**
+ * Compact binary codec for messages of {@link BaseStoreFactory}.
+ * <p>
+ * Node ids and lengths are written as varints, session ids as 16 bytes
+ * and namespace/room names are interned on both sides.
+ * Packet of {@link DispatchMessage} is transferred as already encoded
+ * frame, so receiving node sends it to clients without encoding.
+ * Other message types are written using java serialization.
+ *
+ */
+public class CompactPubSubCodec implements PubSubCodec {
+
+    private static final int CONNECT = 1;
+    private static final int DISCONNECT = 2;
+    private static final int JOIN_LEAVE = 3;
+    private static final int DISPATCH = 4;
+    private static final int BATCH = 5;
+    private static final int SERIALIZED = 6;
+
+    private static final int NAMES_CACHE_SIZE = 1024;
+
+    private static final PubSubType[] TYPES = PubSubType.values();
+
+    private static class Name {
+
+        final String value;
+        final byte[] bytes;
+
+        Name(String value, byte[] bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+
+    }
+
+    // direct-mapped caches, colliding entries simply replace each other
+    private final Name[] encodeNames = new Name[NAMES_CACHE_SIZE];
+    private final Name[] decodeNames = new Name[NAMES_CACHE_SIZE];
+
+    private PacketEncoder encoder;
+
+    @Override
+    public void init(JsonSupport jsonSupport) {
+        Configuration configuration = new Configuration();
+        configuration.setPreferDirectBuffer(false);
+        encoder = new PacketEncoder(configuration, jsonSupport);
+    }
+
+    @Override
+    public byte[] encode(PubSubMessage msg) throws IOException {
+        ByteBuf out = Unpooled.buffer();
+        try {
+            writeMessage(msg, out);
+            return ByteBufUtil.getBytes(out);
+        } finally {
+            out.release();
+        }
+    }
+
+    @Override
+    public PubSubMessage decode(byte[] data) throws IOException {
+        try {
+            return readMessage(Unpooled.wrappedBuffer(data));
+        } catch (RuntimeException e) {
+            // truncated data, malformed varint or unknown message type
+            throw new IOException("Malformed message", e);
+        }
+    }
+
+    private void writeMessage(PubSubMessage msg, ByteBuf out) throws IOException {
+        if (msg instanceof ConnectMessage) {
+            out.writeByte(CONNECT);
+            writeNodeId(msg, out);
+            writeUUID(((ConnectMessage) msg).getSessionId(), out);
+        } else if (msg instanceof DisconnectMessage) {
+            out.writeByte(DISCONNECT);
+            writeNodeId(msg, out);
+            writeUUID(((DisconnectMessage) msg).getSessionId(), out);
+        } else if (msg instanceof JoinLeaveMessage) {
+            JoinLeaveMessage m = (JoinLeaveMessage) msg;
+            out.writeByte(JOIN_LEAVE);
+            writeNodeId(msg, out);
+            writeUUID(m.getSessionId(), out);
+            writeName(m.getNamespace(), out);
+            writeName(m.getRoom(), out);
+        } else if (msg instanceof DispatchMessage && encoder != null) {
+            DispatchMessage m = (DispatchMessage) msg;
+            out.writeByte(DISPATCH);
+            writeNodeId(msg, out);
+            writeName(m.getNamespace(), out);
+            writeName(m.getRoom(), out);
+            writePacket(m.getPacket().withNsp(m.getNamespace()), out);
+        } else if (msg instanceof BatchMessage) {
+            BatchMessage m = (BatchMessage) msg;
+            out.writeByte(BATCH);
+            writeNodeId(msg, out);
+            List<PubSubType> types = m.getTypes();
+            writeVarLong(types.size(), out);
+            for (int i = 0; i < types.size(); i++) {
+                out.writeByte(types.get(i).ordinal());
+                writeMessage(m.getMessages().get(i), out);
+            }
+        } else {
+            out.writeByte(SERIALIZED);
+            ObjectOutputStream oos = new ObjectOutputStream(new ByteBufOutputStream(out));
+            oos.writeObject(msg);
+            oos.close();
+        }
+    }
+
+    private PubSubMessage readMessage(ByteBuf in) throws IOException {
+        int tag = in.readByte();
+        if (tag == SERIALIZED) {
+            ObjectInputStream ois = new ObjectInputStream(new ByteBufInputStream(in));
+            try {
+                return (PubSubMessage) ois.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            } finally {
+                ois.close();
+            }
+        }
+
+        Long nodeId = readNodeId(in);
+        PubSubMessage msg;
+        switch (tag) {
+        case CONNECT:
+            msg = new ConnectMessage(readUUID(in));
+            break;
+        case DISCONNECT:
+            msg = new DisconnectMessage(readUUID(in));
+            break;
+        case JOIN_LEAVE: {
+            UUID sessionId = readUUID(in);
+            String namespace = readName(in);
+            msg = new JoinLeaveMessage(sessionId, readName(in), namespace);
+            break;
+        }
+        case DISPATCH: {
+            String namespace = readName(in);
+            String room = readName(in);
+            msg = new DispatchMessage(room, readPacket(in, namespace), namespace);
+            break;
+        }
+        case BATCH: {
+            int size = (int) readVarLong(in);
+            BatchMessage batch = new BatchMessage(size);
+            for (int i = 0; i < size; i++) {
+                PubSubType type = TYPES[in.readByte()];
+                batch.add(type, readMessage(in));
+            }
+            msg = batch;
+            break;
+        }
+        default:
+            throw new IOException("Unknown message tag: " + tag);
+        }
+        msg.setNodeId(nodeId);
+        return msg;
+    }
+
+    private void writePacket(Packet packet, ByteBuf out) throws IOException {
+        int lengthIndex = out.writerIndex();
+        out.writeInt(0);
+        // attachments and binary sub type are set during frame encoding
+        encoder.encodePacket(packet, out, ByteBufAllocator.DEFAULT, true);
+        out.setInt(lengthIndex, out.writerIndex() - lengthIndex - 4);
+
+        List<ByteBuf> attachments = packet.getAttachments();
+        writeVarLong(attachments.size(), out);
+        for (ByteBuf attachment : attachments) {
+            writeVarLong(attachment.readableBytes(), out);
+            out.writeBytes(attachment, attachment.readerIndex(), attachment.readableBytes());
+        }
+
+        out.writeByte(packet.getType().ordinal());
+        out.writeByte(packet.getSubType() != null ? packet.getSubType().ordinal() : -1);
+        writeName(packet.getName(), out);
+        writeNullableLong(packet.getAckId(), out);
+    }
+
+    private Packet readPacket(ByteBuf in, String namespace) {
+        ByteBuf frame = in.readSlice(in.readInt());
+        ByteBuf[] attachments = new ByteBuf[(int) readVarLong(in)];
+        for (int i = 0; i < attachments.length; i++) {
+            attachments[i] = in.readSlice((int) readVarLong(in));
+        }
+
+        Packet packet = new Packet(PacketType.VALUES[in.readByte()]);
+        int subType = in.readByte();
+        if (subType != -1) {
+            packet.setSubType(PacketType.VALUES[subType]);
+        }
+        packet.setName(readName(in));
+        packet.setAckId(readNullableLong(in));
+        packet.setNsp(namespace);
+
+        packet.setEncodedFrame(Unpooled.unreleasableBuffer(frame));
+        packet.setEncodeOnce(true);
+        if (attachments.length > 0) {
+            packet.initAttachments(attachments.length);
+            for (ByteBuf attachment : attachments) {
+                packet.addAttachment(attachment);
+            }
+        }
+        return packet;
+    }
+
+    private void writeNodeId(PubSubMessage msg, ByteBuf out) {
+        writeNullableLong(msg.getNodeId(), out);
+    }
+
+    private Long readNodeId(ByteBuf in) {
+        return readNullableLong(in);
+    }
+
+    private void writeNullableLong(Long value, ByteBuf out) {
+        if (value == null) {
+            writeVarLong(0, out);
+        } else {
+            writeVarLong(value + 1, out);
+        }
+    }
+
+    private Long readNullableLong(ByteBuf in) {
+        long value = readVarLong(in);
+        if (value == 0) {
+            return null;
+        }
+        return value - 1;
+    }
+
+    private void writeVarLong(long value, ByteBuf out) {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private long readVarLong(ByteBuf in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    private void writeUUID(UUID uuid, ByteBuf out) {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private UUID readUUID(ByteBuf in) {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private void writeName(String name, ByteBuf out) {
+        if (name == null) {
+            writeVarLong(0, out);
+            return;
+        }
+
+        int index = name.hashCode() & (NAMES_CACHE_SIZE - 1);
+        Name entry = encodeNames[index];
+        if (entry == null || !entry.value.equals(name)) {
+            entry = new Name(name, name.getBytes(CharsetUtil.UTF_8));
+            encodeNames[index] = entry;
+        }
+        writeVarLong(entry.bytes.length + 1, out);
+        out.writeBytes(entry.bytes);
+    }
+
+    private String readName(ByteBuf in) {
+        int length = (int) readVarLong(in);
+        if (length == 0) {
+            return null;
+        }
+        length--;
+
+        int hash = 1;
+        int start = in.readerIndex();
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + in.getByte(i);
+        }
+        int index = hash & (NAMES_CACHE_SIZE - 1);
+        Name entry = decodeNames[index];
+        if (entry == null || !matches(entry.bytes, in, start, length)) {
+            byte[] bytes = new byte[length];
+            in.getBytes(start, bytes);
+            entry = new Name(new String(bytes, CharsetUtil.UTF_8), bytes);
+            decodeNames[index] = entry;
+        }
+        in.skipBytes(length);
+        return entry.value;
+    }
+
+    private boolean matches(byte[] bytes, ByteBuf in, int start, int length) {
+        if (bytes.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] != in.getByte(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
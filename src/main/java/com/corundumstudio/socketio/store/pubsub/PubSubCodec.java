@@ -0,0 +1,39 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.store.pubsub;
+
+import java.io.IOException;
+
+import com.corundumstudio.socketio.protocol.JsonSupport;
+
+/**
+ * Serializes messages published between cluster nodes.
+ *
+ */
+public interface PubSubCodec {
+
+    /**
+     * Invoked once on server start
+     *
+     * @param jsonSupport - json support used by server
+     */
+    void init(JsonSupport jsonSupport);
+
+    byte[] encode(PubSubMessage msg) throws IOException;
+
+    PubSubMessage decode(byte[] data) throws IOException;
+
+}
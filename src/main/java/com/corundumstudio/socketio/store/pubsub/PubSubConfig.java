@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.store.pubsub;
+
+/**
+ * Publish/subscribe configuration of distributed store factories.
+ *
+ * @see BatchingPubSubStore
+ */
+public class PubSubConfig {
+
+    private boolean publishBatching = false;
+
+    private int publishQueueSize = 65536;
+
+    private int publishBatchSize = 256;
+
+    private int publishBatchDelay = 5;
+
+    private PubSubCodec codec;
+
+    public boolean isPublishBatching() {
+        return publishBatching;
+    }
+    /**
+     * Publish messages asynchronously from dedicated thread.
+     * Messages collected during <code>publishBatchDelay</code> are sent
+     * in single envelope. All cluster nodes should use batching
+     * once it's enabled.
+     * <p>
+     * Default is <code>false</code>
+     *
+     * @param publishBatching - <code>true</code> to batch messages
+     */
+    public void setPublishBatching(boolean publishBatching) {
+        this.publishBatching = publishBatching;
+    }
+
+    public int getPublishQueueSize() {
+        return publishQueueSize;
+    }
+    /**
+     * Max amount of messages waiting for publishing.
+     * Once queue is full new {@link PubSubType#DISPATCH} messages are dropped
+     * and other messages are queued in unbounded overflow queue.
+     * <p>
+     * Default is <code>65536</code>
+     *
+     * @param publishQueueSize - queue size
+     */
+    public void setPublishQueueSize(int publishQueueSize) {
+        this.publishQueueSize = publishQueueSize;
+    }
+
+    public int getPublishBatchSize() {
+        return publishBatchSize;
+    }
+    /**
+     * Max amount of messages in single envelope.
+     * <p>
+     * Default is <code>256</code>
+     *
+     * @param publishBatchSize - batch size
+     */
+    public void setPublishBatchSize(int publishBatchSize) {
+        this.publishBatchSize = publishBatchSize;
+    }
+
+    public int getPublishBatchDelay() {
+        return publishBatchDelay;
+    }
+    /**
+     * Max time in milliseconds to wait for more messages
+     * before envelope is published.
+     * <p>
+     * Default is <code>5</code>
+     *
+     * @param publishBatchDelay - delay in milliseconds
+     */
+    public void setPublishBatchDelay(int publishBatchDelay) {
+        this.publishBatchDelay = publishBatchDelay;
+    }
+
+    public PubSubCodec getCodec() {
+        return codec;
+    }
+    /**
+     * Codec used to serialize messages published between nodes,
+     * for example {@link CompactPubSubCodec}.
+     * All cluster nodes should use the same codec.
+     * <p>
+     * Default is <code>null</code> - messages are serialized
+     * by Redisson or Hazelcast client
+     *
+     * @param codec - messages codec
+     */
+    public void setCodec(PubSubCodec codec) {
+        this.codec = codec;
+    }
+
+}
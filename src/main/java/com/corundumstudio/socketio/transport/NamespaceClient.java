@@ -19,27 +19,36 @@ import java.net.SocketAddress;
 import java.util.Arrays;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.corundumstudio.socketio.AckCallback;
+import com.corundumstudio.socketio.ExtendedSocketIOClient;
 import com.corundumstudio.socketio.HandshakeData;
-import com.corundumstudio.socketio.SocketIOClient;
 import com.corundumstudio.socketio.Transport;
 import com.corundumstudio.socketio.handler.ClientHead;
 import com.corundumstudio.socketio.namespace.Namespace;
+import com.corundumstudio.socketio.protocol.ConflatedPacket;
 import com.corundumstudio.socketio.protocol.Packet;
 import com.corundumstudio.socketio.protocol.PacketType;
 
-public class NamespaceClient implements SocketIOClient {
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.internal.PlatformDependent;
+
+public class NamespaceClient implements ExtendedSocketIOClient {
 
     private static final Logger log = LoggerFactory.getLogger(NamespaceClient.class);
 
     private final AtomicBoolean disconnected = new AtomicBoolean();
     private final ClientHead baseClient;
     private final Namespace namespace;
+    private final ConcurrentMap<String, ConflatedPacket> conflatedPackets = PlatformDependent.newConcurrentHashMap();
 
     public NamespaceClient(ClientHead baseClient, Namespace namespace) {
         this.baseClient = baseClient;
@@ -84,6 +93,41 @@ public class NamespaceClient implements SocketIOClient {
         send(packet, ackCallback);
     }
 
+    @Override
+    public void sendEventConflated(String key, String name, Object ... data) {
+        if (!isConnected()) {
+            return;
+        }
+
+        Packet packet = new Packet(PacketType.MESSAGE);
+        packet.setSubType(PacketType.EVENT);
+        packet.setName(name);
+        packet.setData(Arrays.asList(data));
+        packet = packet.withNsp(namespace.getName());
+
+        ConflatedPacket slot = ConflatedPacket.conflate(key, packet, conflatedPackets);
+        if (slot != null) {
+            baseClient.send(slot);
+        }
+    }
+
+    @Override
+    public <T> Future<T> sendEventAsync(String name, Class<T> resultClass, int timeout, Object ... data) {
+        final Promise<T> promise = ImmediateEventExecutor.INSTANCE.newPromise();
+        sendEvent(name, new AckCallback<T>(resultClass, timeout) {
+            @Override
+            public void onSuccess(T result) {
+                promise.trySuccess(result);
+            }
+
+            @Override
+            public void onTimeout() {
+                promise.tryFailure(new TimeoutException("Ack timeout for sessionId: " + getSessionId()));
+            }
+        }, data);
+        return promise;
+    }
+
     private boolean isConnected() {
         return !disconnected.get() && baseClient.isConnected();
     }
@@ -94,7 +138,7 @@ public class NamespaceClient implements SocketIOClient {
             ackCallback.onTimeout();
             return;
         }
-        long index = baseClient.getAckManager().registerAck(getSessionId(), ackCallback);
+        long index = baseClient.getAckManager().registerAck(baseClient, ackCallback);
         packet.setAckId(index);
         send(packet);
     }
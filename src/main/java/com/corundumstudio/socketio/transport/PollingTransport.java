@@ -15,6 +15,7 @@
  */
 package com.corundumstudio.socketio.transport;
 
+import com.corundumstudio.socketio.Configuration;
 import com.corundumstudio.socketio.Transport;
 import com.corundumstudio.socketio.handler.AuthorizeHandler;
 import com.corundumstudio.socketio.handler.ClientHead;
@@ -51,9 +52,12 @@ public class PollingTransport extends ChannelInboundHandlerAdapter {
     private final PacketDecoder decoder;
     private final ClientsBox clientsBox;
     private final AuthorizeHandler authorizeHandler;
+    private final Configuration configuration;
 
-    public PollingTransport(String connectPath, PacketDecoder decoder, AuthorizeHandler authorizeHandler, ClientsBox clientsBox) {
+    public PollingTransport(String connectPath, PacketDecoder decoder, AuthorizeHandler authorizeHandler, ClientsBox clientsBox,
+                            Configuration configuration) {
         this.connectPath = connectPath;
+        this.configuration = configuration;
         this.decoder = decoder;
         this.authorizeHandler = authorizeHandler;
         this.clientsBox = clientsBox;
@@ -79,10 +83,21 @@ public class PollingTransport extends ChannelInboundHandlerAdapter {
                 String userAgent = req.headers().get(HttpHeaderNames.USER_AGENT);
                 ctx.channel().attr(EncoderHandler.USER_AGENT).set(userAgent);
 
+                boolean keepAlive = configuration.isHttpKeepAlive() && HttpUtil.isKeepAlive(req);
+                ctx.channel().attr(EncoderHandler.KEEP_ALIVE).set(keepAlive);
+                if (HttpMethod.GET.equals(req.method())) {
+                    // each request on persistent connection gets its own response
+                    ctx.channel().attr(EncoderHandler.WRITE_ONCE).set(null);
+                }
+
+                // persistent connection may carry requests of different sessions
+                Integer index = null;
                 if (j != null && j.get(0) != null) {
-                    Integer index = Integer.valueOf(j.get(0));
-                    ctx.channel().attr(EncoderHandler.JSONP_INDEX).set(index);
+                    index = Integer.valueOf(j.get(0));
                 }
+                ctx.channel().attr(EncoderHandler.JSONP_INDEX).set(index);
+
+                Boolean enableB64 = null;
                 if (b64 != null && b64.get(0) != null) {
                     String flag = b64.get(0);
                     if ("true".equals(flag)) {
@@ -91,8 +106,9 @@ public class PollingTransport extends ChannelInboundHandlerAdapter {
                         flag = "0";
                     }
                     int enable = Integer.parseInt(flag);
-                    ctx.channel().attr(EncoderHandler.B64).set(enable == 1);
+                    enableB64 = enable == 1;
                 }
+                ctx.channel().attr(EncoderHandler.B64).set(enableB64);
 
                 try {
                     if (sid != null && sid.get(0) != null) {
@@ -172,6 +188,11 @@ public class PollingTransport extends ChannelInboundHandlerAdapter {
             return;
         }
 
+        ClientHead prevClient = clientsBox.get(ctx.channel());
+        if (prevClient != null && prevClient != client) {
+            // persistent connection has been used by other session before
+            prevClient.releasePollingChannel(ctx.channel());
+        }
         client.bindChannel(ctx.channel(), Transport.POLLING);
 
         authorizeHandler.connect(client);
@@ -127,6 +127,17 @@ public class WebSocketTransport extends ChannelInboundHandlerAdapter {
         }
     }
 
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable()) {
+            ClientHead client = clientsBox.get(ctx.channel());
+            if (client != null && client.isTransportChannel(ctx.channel(), Transport.WEBSOCKET)) {
+                client.resumeSending(Transport.WEBSOCKET);
+            }
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         final  Channel channel = ctx.channel();
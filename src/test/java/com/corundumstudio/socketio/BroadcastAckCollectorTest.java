@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import mockit.Expectations;
+import mockit.Mocked;
+
+import org.junit.Test;
+
+import io.netty.util.concurrent.Future;
+
+public class BroadcastAckCollectorTest {
+
+    @Mocked
+    private SocketIOClient client1;
+
+    @Mocked
+    private SocketIOClient client2;
+
+    private final UUID sessionId1 = UUID.randomUUID();
+    private final UUID sessionId2 = UUID.randomUUID();
+
+    private void initExpectations() {
+        new Expectations() {{
+            client1.getSessionId(); result = sessionId1; minTimes = 0;
+            client2.getSessionId(); result = sessionId2; minTimes = 0;
+        }};
+    }
+
+    @Test
+    public void testAllAcknowledged() throws Exception {
+        initExpectations();
+        BroadcastAckCollector<String> collector = new BroadcastAckCollector<String>(String.class, Arrays.asList(client1, client2));
+        AckCallback<String> callback1 = collector.createCallback(0);
+        AckCallback<String> callback2 = collector.createCallback(1);
+
+        Future<BroadcastAckResult<String>> future = collector.start(60);
+        callback1.onSuccess("one");
+        assertFalse(future.isDone());
+        callback2.onSuccess(null);
+        // late duplicate events are ignored
+        callback2.onTimeout();
+
+        BroadcastAckResult<String> result = future.get();
+        assertTrue(result.isAllAcknowledged());
+        assertEquals("one", result.getResults().get(sessionId1));
+        assertTrue(result.getResults().containsKey(sessionId2));
+    }
+
+    @Test
+    public void testDisconnected() throws Exception {
+        initExpectations();
+        BroadcastAckCollector<String> collector = new BroadcastAckCollector<String>(String.class, Arrays.asList(client1, client2));
+        collector.createCallback(0).onSuccess("one");
+        collector.createCallback(1).onTimeout();
+
+        BroadcastAckResult<String> result = collector.start(60).get();
+        assertEquals(1, result.getResults().size());
+        assertEquals(Collections.singletonList(sessionId2), result.getTimedOutSessionIds());
+    }
+
+    @Test
+    public void testQuorum() throws Exception {
+        initExpectations();
+        BroadcastAckCollector<String> collector = new BroadcastAckCollector<String>(String.class, Arrays.asList(client1, client2), 1);
+        AckCallback<String> callback1 = collector.createCallback(0);
+        AckCallback<String> callback2 = collector.createCallback(1);
+
+        Future<BroadcastAckResult<String>> future = collector.start(60);
+        callback2.onSuccess("two");
+        assertTrue(future.isDone());
+        callback1.onSuccess("one");
+
+        BroadcastAckResult<String> result = future.get();
+        assertEquals(Collections.singletonMap(sessionId2, "two"), result.getResults());
+        assertTrue(result.getTimedOutSessionIds().isEmpty());
+    }
+
+    @Test
+    public void testNoTimeout() throws Exception {
+        initExpectations();
+        BroadcastAckCollector<String> collector = new BroadcastAckCollector<String>(String.class, Arrays.asList(client1, client2));
+        AckCallback<String> callback1 = collector.createCallback(0);
+        AckCallback<String> callback2 = collector.createCallback(1);
+
+        Future<BroadcastAckResult<String>> future = collector.start(-1);
+        callback1.onSuccess("one");
+        Thread.sleep(100);
+        assertFalse(future.isDone());
+        callback2.onSuccess("two");
+
+        BroadcastAckResult<String> result = future.get();
+        assertTrue(result.isAllAcknowledged());
+        assertEquals(2, result.getResults().size());
+    }
+
+    @Test
+    public void testNoRecipients() throws Exception {
+        BroadcastAckCollector<String> collector = new BroadcastAckCollector<String>(String.class, Collections.<SocketIOClient>emptyList());
+        assertTrue(collector.start(60).get().isAllAcknowledged());
+    }
+
+}
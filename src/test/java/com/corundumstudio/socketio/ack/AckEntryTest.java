@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.ack;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.corundumstudio.socketio.AckCallback;
+
+public class AckEntryTest {
+
+    private static class TestCallback extends AckCallback<String> {
+
+        TestCallback() {
+            super(String.class);
+        }
+
+        @Override
+        public void onSuccess(String result) {
+        }
+
+    }
+
+    @Test
+    public void testAddRemove() {
+        AckEntry entry = new AckEntry();
+        entry.initAckIndex(0);
+
+        TestCallback callback = new TestCallback();
+        long index = entry.addAckCallback(callback, AckEntry.NO_TIMEOUT);
+        assertEquals(1, index);
+        assertSame(callback, entry.getAckCallback(index));
+        assertSame(callback, entry.removeCallback(index));
+        assertNull(entry.removeCallback(index));
+        assertEquals(0, entry.size());
+    }
+
+    @Test
+    public void testInitAckIndex() {
+        AckEntry entry = new AckEntry();
+        entry.initAckIndex(10);
+        entry.initAckIndex(0);
+        assertEquals(11, entry.addAckCallback(new TestCallback(), AckEntry.NO_TIMEOUT));
+    }
+
+    @Test
+    public void testExpire() {
+        AckEntry entry = new AckEntry();
+        TestCallback expiredCallback = new TestCallback();
+        entry.addAckCallback(expiredCallback, 100);
+        long index = entry.addAckCallback(new TestCallback(), 300);
+        entry.addAckCallback(new TestCallback(), AckEntry.NO_TIMEOUT);
+
+        assertTrue(entry.updateCheckTime(100));
+        assertFalse(entry.updateCheckTime(300));
+
+        List<AckCallback<?>> expired = new ArrayList<AckCallback<?>>();
+        assertEquals(300, entry.expire(200, expired));
+        assertEquals(1, expired.size());
+        assertSame(expiredCallback, expired.get(0));
+        assertEquals(2, entry.size());
+
+        expired.clear();
+        assertEquals(AckEntry.NO_TIMEOUT, entry.expire(300, expired));
+        assertEquals(1, expired.size());
+        assertNull(entry.getAckCallback(index));
+    }
+
+    @Test
+    public void testRemoveAll() {
+        AckEntry entry = new AckEntry();
+        entry.addAckCallback(new TestCallback(), 100);
+        entry.addAckCallback(new TestCallback(), AckEntry.NO_TIMEOUT);
+
+        assertEquals(2, entry.removeAll().size());
+        assertEquals(0, entry.size());
+        assertTrue(entry.updateCheckTime(500));
+    }
+
+}
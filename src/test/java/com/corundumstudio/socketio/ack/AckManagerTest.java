@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.ack;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import mockit.Expectations;
+import mockit.Mocked;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.corundumstudio.socketio.AckCallback;
+import com.corundumstudio.socketio.handler.ClientHead;
+import com.corundumstudio.socketio.scheduler.HashedWheelTimeoutScheduler;
+import com.corundumstudio.socketio.scheduler.SchedulerKey;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+
+public class AckManagerTest {
+
+    private static class TestCallback extends AckCallback<String> {
+
+        private final AtomicInteger timeouts = new AtomicInteger();
+
+        TestCallback(int timeout) {
+            super(String.class, timeout);
+        }
+
+        @Override
+        public void onSuccess(String result) {
+        }
+
+        @Override
+        public void onTimeout() {
+            timeouts.incrementAndGet();
+        }
+
+    }
+
+    @Mocked
+    private ClientHead client;
+
+    @Mocked
+    private ChannelHandlerContext ctx;
+
+    private final AckEntry ackEntry = new AckEntry();
+    private final CountDownLatch firstCheck = new CountDownLatch(1);
+    private final AtomicInteger checks = new AtomicInteger();
+
+    private final HashedWheelTimeoutScheduler scheduler = new HashedWheelTimeoutScheduler() {
+        @Override
+        public void scheduleCallback(SchedulerKey key, final Runnable runnable, long delay, TimeUnit unit) {
+            super.scheduleCallback(key, new Runnable() {
+                @Override
+                public void run() {
+                    runnable.run();
+                    checks.incrementAndGet();
+                    firstCheck.countDown();
+                }
+            }, delay, unit);
+        }
+    };
+
+    @Before
+    public void before() {
+        new Expectations() {{
+            client.getAckEntry(); result = ackEntry; minTimes = 0;
+            client.getSessionId(); result = UUID.randomUUID(); minTimes = 0;
+            ctx.executor(); result = ImmediateEventExecutor.INSTANCE; minTimes = 0;
+        }};
+        scheduler.update(ctx);
+    }
+
+    @After
+    public void after() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testDisconnectWithRescheduledCheck() throws InterruptedException {
+        AckManager ackManager = new AckManager(scheduler);
+        TestCallback callback1 = new TestCallback(1);
+        TestCallback callback2 = new TestCallback(2);
+        ackManager.registerAck(client, callback1);
+        ackManager.registerAck(client, callback2);
+
+        // first check expires callback1 and schedules next one for callback2
+        assertTrue(firstCheck.await(5, TimeUnit.SECONDS));
+        assertEquals(1, callback1.timeouts.get());
+        assertEquals(0, callback2.timeouts.get());
+
+        ackManager.onDisconnect(client);
+        assertEquals(1, callback2.timeouts.get());
+
+        // rescheduled check has been cancelled
+        Thread.sleep(1500);
+        assertEquals(1, checks.get());
+        assertEquals(1, callback2.timeouts.get());
+    }
+
+}
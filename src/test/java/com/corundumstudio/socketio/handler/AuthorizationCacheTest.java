@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.corundumstudio.socketio.AuthorizationCacheConfig;
+import com.corundumstudio.socketio.AuthorizedResponse;
+
+public class AuthorizationCacheTest {
+
+    @Test
+    public void testExpiration() {
+        AuthorizationCacheConfig config = new AuthorizationCacheConfig();
+        config.setTtl(1000);
+        AuthorizationCache cache = new AuthorizationCache(config);
+
+        AuthorizedResponse response = AuthorizedResponse.OK();
+        cache.put("token", response, 0);
+        assertSame(response, cache.get("token", TimeUnit.MILLISECONDS.toNanos(999)));
+        assertNull(cache.get("token", TimeUnit.MILLISECONDS.toNanos(1000)));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testEviction() {
+        AuthorizationCacheConfig config = new AuthorizationCacheConfig();
+        config.setMaxSize(2);
+        AuthorizationCache cache = new AuthorizationCache(config);
+
+        AuthorizedResponse response = AuthorizedResponse.OK();
+        cache.put("token1", response, 0);
+        cache.put("token2", response, 0);
+        // token1 becomes most recently used
+        cache.get("token1", 0);
+        cache.put("token3", response, 0);
+
+        assertEquals(2, cache.size());
+        assertSame(response, cache.get("token1", 0));
+        assertNull(cache.get("token2", 0));
+        assertSame(response, cache.get("token3", 0));
+    }
+
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+import mockit.Mocked;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.corundumstudio.socketio.AsyncAuthorizationListener;
+import com.corundumstudio.socketio.AuthorizationResponse;
+import com.corundumstudio.socketio.Configuration;
+import com.corundumstudio.socketio.HandshakeData;
+import com.corundumstudio.socketio.ServerMetrics;
+import com.corundumstudio.socketio.UnauthorizedResponse;
+import com.corundumstudio.socketio.namespace.HttpNamespace;
+import com.corundumstudio.socketio.namespace.NamespacesHub;
+import com.corundumstudio.socketio.scheduler.CancelableScheduler;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+
+public class AuthorizeHandlerTest {
+
+    @Mocked
+    private CancelableScheduler scheduler;
+
+    private final ServerMetrics metrics = new ServerMetrics();
+    private final Configuration configuration = new Configuration();
+    private volatile Future<AuthorizationResponse> authorizationFuture;
+    private AuthorizeHandler handler;
+
+    @Before
+    public void before() {
+        configuration.setAsyncAuthorizationListener(new AsyncAuthorizationListener() {
+            @Override
+            public Future<AuthorizationResponse> isAuthorized(HandshakeData data) {
+                return authorizationFuture;
+            }
+        });
+        configuration.getHandshakeLimitConfig().setMaxConcurrent(1);
+        configuration.setAsyncAuthorizationTimeout(0);
+    }
+
+    private void createHandler() {
+        handler = new AuthorizeHandler("/socket.io/", scheduler, configuration, new NamespacesHub(configuration),
+                new HttpNamespace(configuration), configuration.getStoreFactory(), null, null, new ClientsBox(), metrics, null);
+    }
+
+    private EmbeddedChannel createChannel() {
+        return new EmbeddedChannel(handler) {
+            @Override
+            public SocketAddress remoteAddress() {
+                return new InetSocketAddress("127.0.0.1", 10000);
+            }
+
+            @Override
+            public SocketAddress localAddress() {
+                return new InetSocketAddress("127.0.0.1", 9092);
+            }
+        };
+    }
+
+    private FullHttpRequest handshake(EmbeddedChannel channel) {
+        FullHttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/socket.io/?EIO=3&transport=polling");
+        req.retain();
+        channel.writeInbound(req);
+        return req;
+    }
+
+    private void assertCompleted(EmbeddedChannel channel, FullHttpRequest req, HttpResponseStatus status) {
+        HttpResponse res = channel.readOutbound();
+        assertEquals(status, res.status());
+        assertEquals(1, req.refCnt());
+        assertTrue(channel.config().isAutoRead());
+        req.release();
+
+        // permit is released
+        EmbeddedChannel nextChannel = createChannel();
+        authorizationFuture = ImmediateEventExecutor.INSTANCE.newSucceededFuture((AuthorizationResponse) UnauthorizedResponse.UNAUTHORIZED());
+        handshake(nextChannel).release();
+        assertEquals(0, metrics.getShedHandshakes());
+    }
+
+    @Test
+    public void testImmediateCompletion() {
+        createHandler();
+        authorizationFuture = ImmediateEventExecutor.INSTANCE.newSucceededFuture((AuthorizationResponse) UnauthorizedResponse.UNAUTHORIZED());
+        EmbeddedChannel channel = createChannel();
+        FullHttpRequest req = handshake(channel);
+
+        assertCompleted(channel, req, HttpResponseStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    public void testCompletionInOtherThread() throws InterruptedException {
+        createHandler();
+        final Promise<AuthorizationResponse> promise = ImmediateEventExecutor.INSTANCE.newPromise();
+        authorizationFuture = promise;
+        EmbeddedChannel channel = createChannel();
+        FullHttpRequest req = handshake(channel);
+        assertNull(channel.readOutbound());
+        assertFalse(channel.config().isAutoRead());
+
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                promise.setSuccess(UnauthorizedResponse.INTERNAL_SERVER_ERROR());
+            }
+        };
+        thread.start();
+        thread.join();
+        channel.runPendingTasks();
+
+        assertCompleted(channel, req, HttpResponseStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Test
+    public void testFailure() {
+        createHandler();
+        authorizationFuture = ImmediateEventExecutor.INSTANCE.newFailedFuture(new IllegalStateException());
+        EmbeddedChannel channel = createChannel();
+        FullHttpRequest req = handshake(channel);
+
+        assertCompleted(channel, req, HttpResponseStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    public void testTimeout() throws InterruptedException {
+        configuration.setAsyncAuthorizationTimeout(1);
+        createHandler();
+        Promise<AuthorizationResponse> promise = ImmediateEventExecutor.INSTANCE.newPromise();
+        authorizationFuture = promise;
+        EmbeddedChannel channel = createChannel();
+        FullHttpRequest req = handshake(channel);
+
+        Thread.sleep(50);
+        channel.runScheduledPendingTasks();
+        assertTrue(promise.isCancelled());
+
+        assertCompleted(channel, req, HttpResponseStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    public void testChannelClosedWhilePending() {
+        createHandler();
+        Promise<AuthorizationResponse> promise = ImmediateEventExecutor.INSTANCE.newPromise();
+        authorizationFuture = promise;
+        EmbeddedChannel channel = createChannel();
+        FullHttpRequest req = handshake(channel);
+
+        channel.close();
+        assertTrue(promise.isCancelled());
+        assertEquals(1, req.refCnt());
+        req.release();
+
+        // late result is ignored
+        promise.trySuccess(UnauthorizedResponse.UNAUTHORIZED());
+        assertNull(channel.readOutbound());
+
+        EmbeddedChannel nextChannel = createChannel();
+        authorizationFuture = ImmediateEventExecutor.INSTANCE.newSucceededFuture((AuthorizationResponse) UnauthorizedResponse.UNAUTHORIZED());
+        handshake(nextChannel).release();
+        assertEquals(0, metrics.getShedHandshakes());
+    }
+
+}
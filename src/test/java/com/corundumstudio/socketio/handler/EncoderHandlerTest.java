@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import mockit.Expectations;
+import mockit.Mocked;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.corundumstudio.socketio.Configuration;
+import com.corundumstudio.socketio.Transport;
+import com.corundumstudio.socketio.messages.OutPacketMessage;
+import com.corundumstudio.socketio.messages.XHROptionsMessage;
+import com.corundumstudio.socketio.protocol.JacksonJsonSupport;
+import com.corundumstudio.socketio.protocol.Packet;
+import com.corundumstudio.socketio.protocol.PacketEncoder;
+import com.corundumstudio.socketio.protocol.PacketType;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+
+public class EncoderHandlerTest {
+
+    @Mocked
+    private ClientHead client;
+
+    private final Configuration configuration = new Configuration();
+    private EmbeddedChannel channel;
+
+    @Before
+    public void before() throws Exception {
+        configuration.setPollingLinger(10);
+        PacketEncoder encoder = new PacketEncoder(configuration, new JacksonJsonSupport());
+        channel = new EmbeddedChannel(new EncoderHandler(configuration, encoder));
+    }
+
+    @Test
+    public void testKeepAliveOptions() {
+        channel.attr(EncoderHandler.KEEP_ALIVE).set(true);
+        channel.writeOutbound(new XHROptionsMessage(null, UUID.randomUUID()));
+
+        HttpResponse res = channel.readOutbound();
+        assertEquals(HttpHeaderValues.KEEP_ALIVE.toString(), res.headers().get(HttpHeaderNames.CONNECTION));
+        assertEquals("0", res.headers().get(HttpHeaderNames.CONTENT_LENGTH));
+        assertTrue(channel.readOutbound() instanceof LastHttpContent);
+        assertNull(channel.readOutbound());
+        assertTrue(channel.isOpen());
+    }
+
+    @Test
+    public void testLingerCancelledOnRelease() throws Exception {
+        final Queue<Packet> queue = new ConcurrentLinkedQueue<Packet>();
+        queue.add(new Packet(PacketType.NOOP));
+        new Expectations() {{
+            client.getPacketsQueue(Transport.POLLING); result = queue; minTimes = 0;
+        }};
+
+        channel.writeOutbound(new OutPacketMessage(client, Transport.POLLING));
+        assertNull(channel.readOutbound());
+        // channel is rebound to other session before linger elapses
+        EncoderHandler.cancelLinger(channel);
+
+        Thread.sleep(50);
+        channel.runPendingTasks();
+        assertNull(channel.readOutbound());
+        assertEquals(1, queue.size());
+    }
+
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.corundumstudio.socketio.HandshakeLimitConfig;
+
+public class HandshakeLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testRate() {
+        HandshakeLimitConfig config = new HandshakeLimitConfig();
+        config.setRate(2);
+        HandshakeLimiter limiter = new HandshakeLimiter(config, 0);
+
+        assertTrue(limiter.tryAcquire(null, 0));
+        assertTrue(limiter.tryAcquire(null, 0));
+        assertFalse(limiter.tryAcquire(null, 0));
+
+        assertTrue(limiter.tryAcquire(null, SECOND / 2));
+        assertFalse(limiter.tryAcquire(null, SECOND / 2));
+    }
+
+    @Test
+    public void testAddressRate() throws UnknownHostException {
+        HandshakeLimitConfig config = new HandshakeLimitConfig();
+        config.setAddressRate(1);
+        HandshakeLimiter limiter = new HandshakeLimiter(config, 0);
+        InetAddress address1 = InetAddress.getByName("10.0.0.1");
+        InetAddress address2 = InetAddress.getByName("10.0.0.2");
+
+        assertTrue(limiter.tryAcquire(address1, 0));
+        assertFalse(limiter.tryAcquire(address1, 0));
+        assertTrue(limiter.tryAcquire(address2, 0));
+        assertEquals(2, limiter.getAddressesAmount());
+
+        // idle addresses are removed
+        assertTrue(limiter.tryAcquire(address1, 20 * SECOND));
+        assertEquals(1, limiter.getAddressesAmount());
+    }
+
+    @Test
+    public void testMaxConcurrent() {
+        HandshakeLimitConfig config = new HandshakeLimitConfig();
+        config.setMaxConcurrent(1);
+        HandshakeLimiter limiter = new HandshakeLimiter(config, 0);
+
+        assertTrue(limiter.tryAcquire(null, 0));
+        assertFalse(limiter.tryAcquire(null, 0));
+        limiter.release();
+        assertTrue(limiter.tryAcquire(null, 0));
+    }
+
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.junit.Test;
+
+import com.corundumstudio.socketio.ServerMetrics;
+import com.corundumstudio.socketio.SlowConsumerPolicy;
+import com.corundumstudio.socketio.protocol.ConflatedPacket;
+import com.corundumstudio.socketio.protocol.Packet;
+import com.corundumstudio.socketio.protocol.PacketType;
+
+public class OutboundPacketQueueTest {
+
+    private Packet event(String name) {
+        Packet packet = new Packet(PacketType.MESSAGE);
+        packet.setSubType(PacketType.EVENT);
+        packet.setName(name);
+        return packet;
+    }
+
+    @Test
+    public void testDropOldest() {
+        ServerMetrics metrics = new ServerMetrics();
+        OutboundPacketQueue queue = new OutboundPacketQueue(2, 0, SlowConsumerPolicy.DROP_OLDEST, metrics);
+        Packet p1 = event("a");
+        Packet p2 = event("b");
+        Packet p3 = event("c");
+        assertTrue(queue.offer(p1));
+        assertTrue(queue.offer(p2));
+        assertTrue(queue.offer(p3));
+
+        assertEquals(2, queue.size());
+        assertEquals(1, metrics.getDroppedPackets());
+        assertSame(p2, queue.poll());
+        assertSame(p3, queue.poll());
+        assertNull(queue.poll());
+        assertEquals(0, queue.getEstimatedBytes());
+    }
+
+    @Test
+    public void testDropNewest() {
+        ServerMetrics metrics = new ServerMetrics();
+        OutboundPacketQueue queue = new OutboundPacketQueue(1, 0, SlowConsumerPolicy.DROP_NEWEST, metrics);
+        Packet p1 = event("a");
+        assertTrue(queue.offer(p1));
+        assertFalse(queue.offer(event("b")));
+
+        assertEquals(1, metrics.getDroppedPackets());
+        assertSame(p1, queue.poll());
+    }
+
+    @Test
+    public void testCoalesce() {
+        ServerMetrics metrics = new ServerMetrics();
+        OutboundPacketQueue queue = new OutboundPacketQueue(2, 0, SlowConsumerPolicy.COALESCE, metrics);
+        Packet p1 = event("price");
+        Packet p2 = event("chat");
+        Packet p3 = event("price");
+        queue.offer(p1);
+        queue.offer(p2);
+        queue.offer(p3);
+
+        assertEquals(1, metrics.getCoalescedPackets());
+        assertEquals(0, metrics.getDroppedPackets());
+        // replaced in place
+        assertSame(p3, queue.poll());
+        assertSame(p2, queue.poll());
+        assertEquals(0, queue.getEstimatedBytes());
+    }
+
+    @Test
+    public void testCoalesceSkipsAckedEvent() {
+        ServerMetrics metrics = new ServerMetrics();
+        OutboundPacketQueue queue = new OutboundPacketQueue(2, 0, SlowConsumerPolicy.COALESCE, metrics);
+        Packet p1 = event("price");
+        p1.setAckId(1L);
+        Packet p2 = event("chat");
+        Packet p3 = event("price");
+        queue.offer(p1);
+        queue.offer(p2);
+        queue.offer(p3);
+
+        assertEquals(0, metrics.getCoalescedPackets());
+        assertEquals(1, metrics.getDroppedPackets());
+        assertSame(p1, queue.poll());
+        assertSame(p3, queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testControlPacketsAreNotDropped() {
+        ServerMetrics metrics = new ServerMetrics();
+        OutboundPacketQueue queue = new OutboundPacketQueue(2, 0, SlowConsumerPolicy.DROP_OLDEST, metrics);
+        Packet connect = new Packet(PacketType.MESSAGE);
+        connect.setSubType(PacketType.CONNECT);
+        Packet acked = event("a");
+        acked.setAckId(1L);
+        Packet ping = new Packet(PacketType.PONG);
+        assertTrue(queue.offer(connect));
+        assertTrue(queue.offer(acked));
+
+        // nothing to drop
+        assertFalse(queue.offer(event("b")));
+        assertTrue(queue.offer(ping));
+
+        assertEquals(1, metrics.getDroppedPackets());
+        assertEquals(3, queue.size());
+        assertSame(connect, queue.poll());
+        assertSame(acked, queue.poll());
+        assertSame(ping, queue.poll());
+    }
+
+    @Test
+    public void testDropNewestQueuesControlPacket() {
+        ServerMetrics metrics = new ServerMetrics();
+        OutboundPacketQueue queue = new OutboundPacketQueue(1, 0, SlowConsumerPolicy.DROP_NEWEST, metrics);
+        Packet disconnect = new Packet(PacketType.MESSAGE);
+        disconnect.setSubType(PacketType.DISCONNECT);
+        assertTrue(queue.offer(event("a")));
+        assertTrue(queue.offer(disconnect));
+        assertEquals(0, metrics.getDroppedPackets());
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    public void testEstimatedSizeIncludesPayload() {
+        Packet small = event("a");
+        small.setData(Arrays.asList("x"));
+        Packet large = event("a");
+        large.setData(Arrays.asList(new String(new char[1000])));
+        assertTrue(large.getEstimatedSize() > small.getEstimatedSize() + 900);
+    }
+
+    @Test
+    public void testRejectedConflatedSlot() {
+        ServerMetrics metrics = new ServerMetrics();
+        ConcurrentMap<String, ConflatedPacket> slots = new ConcurrentHashMap<String, ConflatedPacket>();
+        OutboundPacketQueue queue = new OutboundPacketQueue(1, 0, SlowConsumerPolicy.DROP_NEWEST, metrics);
+        Packet p1 = event("chat");
+        assertTrue(queue.offer(p1));
+        long bytes = queue.getEstimatedBytes();
+
+        ConflatedPacket slot = ConflatedPacket.conflate("price", event("price"), slots);
+        assertFalse(queue.offer(slot));
+        assertTrue(slots.isEmpty());
+        assertEquals(bytes, queue.getEstimatedBytes());
+
+        // key is not stuck in rejected slot
+        assertSame(p1, queue.poll());
+        Packet p2 = event("price");
+        slot = ConflatedPacket.conflate("price", p2, slots);
+        assertNotNull(slot);
+        assertTrue(queue.offer(slot));
+        assertSame(p2, ConflatedPacket.poll(queue));
+        assertEquals(0, queue.getEstimatedBytes());
+    }
+
+    @Test
+    public void testDroppedConflatedSlot() {
+        ServerMetrics metrics = new ServerMetrics();
+        ConcurrentMap<String, ConflatedPacket> slots = new ConcurrentHashMap<String, ConflatedPacket>();
+        OutboundPacketQueue queue = new OutboundPacketQueue(1, 0, SlowConsumerPolicy.DROP_OLDEST, metrics);
+        assertTrue(queue.offer(ConflatedPacket.conflate("price", event("price"), slots)));
+        Packet p1 = event("chat");
+        assertTrue(queue.offer(p1));
+
+        assertTrue(slots.isEmpty());
+        assertEquals(1, metrics.getDroppedPackets());
+        assertSame(p1, queue.poll());
+        assertEquals(0, queue.getEstimatedBytes());
+    }
+
+    @Test
+    public void testBytesLimit() {
+        ServerMetrics metrics = new ServerMetrics();
+        int size = event("a").getEstimatedSize();
+        OutboundPacketQueue queue = new OutboundPacketQueue(0, size * 2, SlowConsumerPolicy.DISCONNECT, metrics);
+        assertTrue(queue.offer(event("a")));
+        assertTrue(queue.offer(event("b")));
+        assertFalse(queue.offer(event("c")));
+        assertEquals(size * 2, queue.getEstimatedBytes());
+    }
+
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import mockit.Expectations;
+import mockit.Mocked;
+import mockit.Verifications;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.corundumstudio.socketio.Configuration;
+
+import io.netty.util.concurrent.EventExecutor;
+
+public class PingTimeoutSweeperTest {
+
+    @Mocked
+    private ClientHead client1;
+
+    @Mocked
+    private ClientHead client2;
+
+    @Mocked
+    private EventExecutor loop1;
+
+    @Mocked
+    private EventExecutor loop2;
+
+    private final UUID sessionId1 = UUID.randomUUID();
+    private final UUID sessionId2 = UUID.randomUUID();
+
+    private final ClientsBox clientsBox = new ClientsBox();
+    private PingTimeoutSweeper sweeper;
+
+    @Before
+    public void before() {
+        new Expectations() {{
+            client1.getSessionId(); result = sessionId1; minTimes = 0;
+            client2.getSessionId(); result = sessionId2; minTimes = 0;
+        }};
+
+        Configuration configuration = new Configuration();
+        configuration.setPingTimeoutCheckInterval(1000);
+        configuration.setPingInterval(1000);
+        configuration.setPingTimeout(1000);
+        sweeper = new PingTimeoutSweeper(clientsBox, configuration);
+
+        clientsBox.addClient(client1);
+        clientsBox.addClient(client2);
+    }
+
+    @Test
+    public void testShardPerEventLoop() {
+        sweeper.register(client1, loop1);
+        sweeper.register(client2, loop2);
+
+        assertNotSame(sweeper.getShard(loop1), sweeper.getShard(loop2));
+        assertEquals(1, sweeper.getShard(loop1).size());
+        assertEquals(1, sweeper.getShard(loop2).size());
+    }
+
+    @Test
+    public void testSweep() {
+        final long now = TimeUnit.SECONDS.toNanos(100);
+        new Expectations() {{
+            client1.getLastActivityTime(); result = now - TimeUnit.SECONDS.toNanos(3);
+            client2.getLastActivityTime(); result = now - TimeUnit.SECONDS.toNanos(1);
+        }};
+
+        sweeper.register(client1, loop1);
+        sweeper.register(client2, loop1);
+        sweeper.getShard(loop1).sweep(now);
+
+        new Verifications() {{
+            client1.disconnect(); times = 1;
+            client2.disconnect(); times = 0;
+        }};
+        assertEquals(1, sweeper.getShard(loop1).size());
+    }
+
+    @Test
+    public void testSweepRemovesDisconnected() {
+        sweeper.register(client1, loop1);
+        clientsBox.removeClient(sessionId1);
+
+        sweeper.getShard(loop1).sweep(TimeUnit.SECONDS.toNanos(100));
+
+        new Verifications() {{
+            client1.disconnect(); times = 0;
+        }};
+        assertEquals(0, sweeper.getShard(loop1).size());
+    }
+
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.misc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class SerialExecutorTest {
+
+    @Test
+    public void testOrder() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            SerialExecutor executor = new SerialExecutor(pool);
+            final List<Integer> result = new ArrayList<Integer>();
+            final AtomicInteger running = new AtomicInteger();
+            final CountDownLatch latch = new CountDownLatch(1000);
+            for (int i = 0; i < 1000; i++) {
+                final int value = i;
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        assertEquals(1, running.incrementAndGet());
+                        result.add(value);
+                        running.decrementAndGet();
+                        latch.countDown();
+                    }
+                });
+            }
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(i, (int) result.get(i));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testRejected() {
+        final AtomicInteger executed = new AtomicInteger();
+        SerialExecutor executor = new SerialExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        });
+
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    executed.incrementAndGet();
+                }
+            });
+            fail();
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+
+        // rejected task isn't executed later
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            fail();
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+        assertEquals(0, executed.get());
+    }
+
+    @Test
+    public void testRejectedReschedule() {
+        final Queue<Runnable> commands = new LinkedList<Runnable>();
+        // accepts only first drain
+        SerialExecutor executor = new SerialExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                if (!commands.isEmpty()) {
+                    throw new RejectedExecutionException();
+                }
+                commands.add(command);
+            }
+        });
+
+        final AtomicInteger executed = new AtomicInteger();
+        for (int i = 0; i < 40; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    executed.incrementAndGet();
+                }
+            });
+        }
+
+        commands.peek().run();
+        assertEquals(40, executed.get());
+    }
+
+    @Test
+    public void testTaskException() throws InterruptedException {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            SerialExecutor executor = new SerialExecutor(pool);
+            final CountDownLatch latch = new CountDownLatch(1);
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    throw new IllegalStateException();
+                }
+            });
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    latch.countDown();
+                }
+            });
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.namespace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Test;
+
+public class CompactRoomRegistryTest {
+
+    private final CompactRoomRegistry registry = new CompactRoomRegistry();
+
+    @Test
+    public void testJoinLeave() {
+        UUID client1 = UUID.randomUUID();
+        UUID client2 = UUID.randomUUID();
+
+        registry.join("room1", client1);
+        registry.join("room1", client2);
+        registry.join("room2", client1);
+        registry.join("room2", client1);
+
+        assertEquals(new HashSet<UUID>(Arrays.asList(client1, client2)), members("room1"));
+        assertEquals(Collections.singleton(client1), members("room2"));
+        assertEquals(new HashSet<String>(Arrays.asList("room1", "room2")), registry.getRooms(client1));
+        assertEquals(new HashSet<String>(Arrays.asList("room1", "room2")), registry.getRooms());
+
+        registry.leave("room2", client1);
+        assertTrue(members("room2").isEmpty());
+        assertFalse(registry.getRooms().contains("room2"));
+        assertEquals(Collections.singleton("room1"), registry.getRooms(client1));
+    }
+
+    @Test
+    public void testLeaveAll() {
+        UUID client1 = UUID.randomUUID();
+        UUID client2 = UUID.randomUUID();
+        registry.join("room1", client1);
+        registry.join("room2", client1);
+        registry.join("room2", client2);
+
+        registry.leaveAll(client1);
+
+        assertTrue(registry.getRooms(client1).isEmpty());
+        assertTrue(members("room1").isEmpty());
+        assertEquals(Collections.singleton(client2), members("room2"));
+    }
+
+    @Test
+    public void testDenseRoom() {
+        List<UUID> clients = new ArrayList<UUID>();
+        for (int i = 0; i < 5000; i++) {
+            UUID client = UUID.randomUUID();
+            clients.add(client);
+            registry.join("all", client);
+            registry.join("room" + (i % 100), client);
+        }
+        assertEquals(new HashSet<UUID>(clients), members("all"));
+        assertEquals(50, members("room7").size());
+
+        for (int i = 0; i < clients.size(); i += 2) {
+            registry.leaveAll(clients.get(i));
+        }
+        assertEquals(2500, members("all").size());
+        assertEquals(0, members("room8").size());
+        assertEquals(50, members("room7").size());
+
+        // released handles are reused by new sessions
+        UUID client = UUID.randomUUID();
+        registry.join("room8", client);
+        assertEquals(Collections.singleton(client), members("room8"));
+        assertFalse(members("all").contains(client));
+    }
+
+    private Set<UUID> members(String room) {
+        Set<UUID> result = new HashSet<UUID>();
+        for (UUID sessionId : registry.getRoomMembers(room)) {
+            assertTrue(result.add(sessionId));
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.namespace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Test;
+
+public class MapRoomRegistryTest {
+
+    private final MapRoomRegistry registry = new MapRoomRegistry();
+
+    @Test
+    public void testJoinLeave() {
+        UUID client1 = UUID.randomUUID();
+        UUID client2 = UUID.randomUUID();
+
+        registry.join("room1", client1);
+        registry.join("room1", client2);
+        registry.join("room2", client1);
+
+        Iterable<UUID> room1 = registry.getRoomMembers("room1");
+        assertEquals(new HashSet<UUID>(Arrays.asList(client1, client2)), members(room1));
+        assertEquals(new HashSet<String>(Arrays.asList("room1", "room2")), registry.getRooms(client1));
+
+        registry.leave("room2", client1);
+        assertTrue(members(registry.getRoomMembers("room2")).isEmpty());
+        assertFalse(registry.getRooms().contains("room2"));
+
+        registry.leave("room1", client2);
+        assertEquals(Collections.singleton(client1), members(room1));
+    }
+
+    @Test
+    public void testLeaveAll() {
+        UUID client1 = UUID.randomUUID();
+        UUID client2 = UUID.randomUUID();
+        registry.join("room1", client1);
+        registry.join("room2", client1);
+        registry.join("room2", client2);
+
+        registry.leaveAll(client1);
+
+        assertTrue(registry.getRooms(client1).isEmpty());
+        assertFalse(registry.getRooms().contains("room1"));
+        assertEquals(Collections.singleton(client2), members(registry.getRoomMembers("room2")));
+    }
+
+    private Set<UUID> members(Iterable<UUID> sessionIds) {
+        Set<UUID> result = new HashSet<UUID>();
+        for (UUID sessionId : sessionIds) {
+            assertTrue(result.add(sessionId));
+        }
+        return result;
+    }
+
+}
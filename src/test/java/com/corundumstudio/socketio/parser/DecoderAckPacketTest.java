@@ -16,7 +16,6 @@
 package com.corundumstudio.socketio.parser;
 
 import java.io.IOException;
-import java.util.UUID;
 
 import mockit.Expectations;
 
@@ -24,6 +23,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import com.corundumstudio.socketio.AckCallback;
+import com.corundumstudio.socketio.handler.ClientHead;
 import com.corundumstudio.socketio.protocol.Packet;
 import com.corundumstudio.socketio.protocol.PacketType;
 import com.fasterxml.jackson.core.JsonParseException;
@@ -50,7 +50,7 @@ public class DecoderAckPacketTest extends DecoderBaseTest {
 
     private void initExpectations() {
         new Expectations() {{
-            ackManager.getCallback((UUID)any, anyInt);
+            ackManager.getCallback((ClientHead)any, anyInt);
             result = new AckCallback<String>(String.class) {
                 @Override
                 public void onSuccess(String result) {
@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.protocol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class ConflatedPacketTest {
+
+    private Packet event(String name) {
+        Packet packet = new Packet(PacketType.MESSAGE);
+        packet.setSubType(PacketType.EVENT);
+        packet.setName(name);
+        return packet;
+    }
+
+    @Test
+    public void testReplaceInPlace() {
+        ConcurrentMap<String, ConflatedPacket> slots = new ConcurrentHashMap<String, ConflatedPacket>();
+        Queue<Packet> queue = new ConcurrentLinkedQueue<Packet>();
+
+        Packet other = event("other");
+        Packet p1 = event("price");
+        Packet p2 = event("price");
+        Packet p3 = event("price");
+
+        queue.add(ConflatedPacket.conflate("price", p1, slots));
+        queue.add(other);
+        assertNull(ConflatedPacket.conflate("price", p2, slots));
+        assertNull(ConflatedPacket.conflate("price", p3, slots));
+
+        assertSame(p3, ConflatedPacket.poll(queue));
+        assertSame(other, ConflatedPacket.poll(queue));
+        assertNull(ConflatedPacket.poll(queue));
+        assertTrue(slots.isEmpty());
+    }
+
+    @Test
+    public void testNewSlotAfterPoll() {
+        ConcurrentMap<String, ConflatedPacket> slots = new ConcurrentHashMap<String, ConflatedPacket>();
+        Queue<Packet> queue = new ConcurrentLinkedQueue<Packet>();
+
+        Packet p1 = event("price");
+        Packet p2 = event("price");
+        queue.add(ConflatedPacket.conflate("price", p1, slots));
+        assertSame(p1, ConflatedPacket.poll(queue));
+
+        ConflatedPacket slot = ConflatedPacket.conflate("price", p2, slots);
+        assertNotNull(slot);
+        queue.add(slot);
+        assertSame(p2, ConflatedPacket.poll(queue));
+    }
+
+    @Test
+    public void testTakenSlotReplaced() {
+        ConcurrentMap<String, ConflatedPacket> slots = new ConcurrentHashMap<String, ConflatedPacket>();
+        ConflatedPacket taken = ConflatedPacket.conflate("price", event("price"), slots);
+        taken.take();
+        // taken slot isn't released yet
+        slots.put("price", taken);
+
+        Packet p2 = event("price");
+        ConflatedPacket slot = ConflatedPacket.conflate("price", p2, slots);
+        assertNotNull(slot);
+        assertSame(slot, slots.get("price"));
+        assertSame(p2, slot.take());
+    }
+
+    @Test
+    public void testConcurrentConflate() throws InterruptedException {
+        final ConcurrentMap<String, ConflatedPacket> slots = new ConcurrentHashMap<String, ConflatedPacket>();
+        final Queue<Packet> queue = new ConcurrentLinkedQueue<Packet>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(4);
+
+        for (int i = 0; i < 4; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int j = 0; j < 10000; j++) {
+                            ConflatedPacket slot = ConflatedPacket.conflate("price", event("price"), slots);
+                            if (slot != null) {
+                                queue.add(slot);
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+        start.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        // key is delivered once since nothing has been polled
+        assertEquals(1, queue.size());
+        assertNotNull(ConflatedPacket.poll(queue));
+        assertNull(ConflatedPacket.poll(queue));
+    }
+
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.protocol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+
+import mockit.Mocked;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.corundumstudio.socketio.Configuration;
+import com.corundumstudio.socketio.ack.AckManager;
+import com.corundumstudio.socketio.handler.ClientHead;
+import com.corundumstudio.socketio.namespace.NamespacesHub;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+
+public class PacketDecoderTest {
+
+    @Mocked
+    private AckManager ackManager;
+
+    @Mocked
+    private ClientHead client;
+
+    private PacketDecoder decoder;
+
+    @Before
+    public void before() {
+        NamespacesHub namespacesHub = new NamespacesHub(new Configuration());
+        namespacesHub.create("/chat");
+        decoder = new PacketDecoder(new JacksonJsonSupport(), ackManager, namespacesHub);
+    }
+
+    @Test
+    public void testDecodeEventWithNamespaceAndAckId() throws IOException {
+        Packet packet = decode("42/chat,127[\"hello\"]");
+        assertEquals(PacketType.MESSAGE, packet.getType());
+        assertEquals(PacketType.EVENT, packet.getSubType());
+        assertEquals("/chat", packet.getNsp());
+        assertEquals(127L, (long) packet.getAckId());
+        assertEquals("hello", packet.getName());
+    }
+
+    @Test
+    public void testDecodeEventWithAckId() throws IOException {
+        Packet packet = decode("421234567[\"hello\"]");
+        assertEquals("", packet.getNsp());
+        assertEquals(1234567L, (long) packet.getAckId());
+        assertEquals("hello", packet.getName());
+    }
+
+    @Test
+    public void testDecodeEventWithNamespaceOnly() throws IOException {
+        Packet packet = decode("42/chat,[\"hello\"]");
+        assertEquals("/chat", packet.getNsp());
+        assertNull(packet.getAckId());
+    }
+
+    @Test
+    public void testNamespaceNameIsInterned() throws IOException {
+        Packet packet1 = decode("42/chat,[\"hello\"]");
+        Packet packet2 = decode("42/chat,1[\"hello\"]");
+        assertSame(packet1.getNsp(), packet2.getNsp());
+
+        Packet connect1 = decode("40/chat");
+        assertSame(packet1.getNsp(), connect1.getNsp());
+    }
+
+    @Test
+    public void testUnknownNamespaceNameIsNotInterned() throws IOException {
+        Packet packet1 = decode("42/unknown,[\"hello\"]");
+        Packet packet2 = decode("42/unknown,[\"hello\"]");
+        assertEquals("/unknown", packet1.getNsp());
+        assertEquals(packet1.getNsp(), packet2.getNsp());
+        assertNotSame(packet1.getNsp(), packet2.getNsp());
+    }
+
+    private Packet decode(String frame) throws IOException {
+        ByteBuf buffer = Unpooled.copiedBuffer(frame, CharsetUtil.UTF_8);
+        try {
+            return decoder.decodePackets(buffer, client);
+        } finally {
+            buffer.release();
+        }
+    }
+
+}
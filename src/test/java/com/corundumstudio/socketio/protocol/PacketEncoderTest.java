@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.protocol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.corundumstudio.socketio.Configuration;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.util.CharsetUtil;
+
+public class PacketEncoderTest {
+
+    private PacketEncoder encoder;
+
+    @Before
+    public void before() {
+        encoder = new PacketEncoder(new Configuration(), new JacksonJsonSupport());
+    }
+
+    private Queue<Packet> createQueue(int size) {
+        Queue<Packet> queue = new ConcurrentLinkedQueue<Packet>();
+        for (int i = 0; i < size; i++) {
+            Packet packet = new Packet(PacketType.MESSAGE);
+            packet.setSubType(PacketType.EVENT);
+            packet.setName("message");
+            packet.setData(Arrays.asList("hello"));
+            queue.add(packet);
+        }
+        return queue;
+    }
+
+    @Test
+    public void testPacketsLimit() throws IOException {
+        Queue<Packet> queue = createQueue(10);
+        ByteBuf out = Unpooled.buffer();
+        assertEquals(3, encoder.encodePackets(queue, out, UnpooledByteBufAllocator.DEFAULT, 3, 0));
+        assertEquals(7, queue.size());
+
+        assertEquals(7, encoder.encodePackets(queue, out, UnpooledByteBufAllocator.DEFAULT, 0, 0));
+        assertEquals(0, queue.size());
+        out.release();
+    }
+
+    @Test
+    public void testBytesLimit() throws IOException {
+        Queue<Packet> queue = createQueue(10);
+        ByteBuf out = Unpooled.buffer();
+        assertEquals(1, encoder.encodePackets(queue, out, UnpooledByteBufAllocator.DEFAULT, 50, 1));
+        assertEquals(9, queue.size());
+        out.release();
+
+        out = Unpooled.buffer();
+        assertEquals(1, encoder.encodeJsonP(null, queue, out, UnpooledByteBufAllocator.DEFAULT, 50, 1));
+        assertEquals(8, queue.size());
+        out.release();
+    }
+
+    @Test
+    public void testReusedBroadcastPacket() throws IOException {
+        Packet packet = createQueue(1).poll();
+
+        ByteBuf frame = encoder.encodePacket(packet.withSharedNsp(""), UnpooledByteBufAllocator.DEFAULT);
+        assertTrue(frame.toString(CharsetUtil.UTF_8).contains("hello"));
+
+        packet.setData(Arrays.asList("bye"));
+        frame = encoder.encodePacket(packet.withSharedNsp(""), UnpooledByteBufAllocator.DEFAULT);
+        assertTrue(frame.toString(CharsetUtil.UTF_8).contains("bye"));
+
+        frame = encoder.encodePacket(packet, UnpooledByteBufAllocator.DEFAULT);
+        assertTrue(frame.toString(CharsetUtil.UTF_8).contains("bye"));
+        frame.release();
+    }
+
+    @Test
+    public void testBinaryHeader() throws IOException {
+        Packet packet = createQueue(1).poll();
+        packet.setAckId(12345L);
+        ByteBuf frame = encoder.encodePacket(packet, UnpooledByteBufAllocator.DEFAULT);
+        String content = frame.toString(CharsetUtil.UTF_8);
+
+        ByteBuf out = Unpooled.buffer();
+        out.writeByte('x');
+        encoder.encodePacket(packet, out, UnpooledByteBufAllocator.DEFAULT, false);
+
+        ByteBuf expected = Unpooled.buffer();
+        expected.writeByte('x');
+        expected.writeByte(0);
+        expected.writeBytes(PacketEncoder.longToBytes(content.length()));
+        expected.writeByte(0xff);
+        expected.writeBytes(frame);
+        assertEquals(expected, out);
+
+        frame.release();
+        expected.release();
+        out.release();
+    }
+
+    @Test
+    public void testJsonPPayload() throws IOException {
+        Queue<Packet> queue = createQueue(2);
+        ByteBuf frame = encoder.encodePacket(queue.peek(), UnpooledByteBufAllocator.DEFAULT);
+        String content = frame.toString(CharsetUtil.UTF_8);
+        frame.release();
+
+        ByteBuf out = Unpooled.buffer();
+        encoder.encodeJsonP(null, queue, out, UnpooledByteBufAllocator.DEFAULT, 0, 0);
+        String expected = content.length() + ":" + content;
+        assertEquals(expected + expected, out.toString(CharsetUtil.UTF_8));
+        out.release();
+    }
+
+}
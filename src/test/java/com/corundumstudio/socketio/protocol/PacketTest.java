@@ -16,9 +16,11 @@
 package com.corundumstudio.socketio.protocol;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import io.netty.buffer.Unpooled;
 import org.junit.Test;
@@ -49,6 +51,18 @@ public class PacketTest {
         assertSame(packet, packet.withNsp(""));
     }
 
+    @Test
+    public void sharedPacketIsAlwaysCopied() {
+        Packet packet = new Packet(PacketType.MESSAGE);
+        Packet sharedPacket = packet.withSharedNsp("");
+        assertNotSame(packet, sharedPacket);
+        assertTrue(sharedPacket.isEncodeOnce());
+        assertFalse(packet.isEncodeOnce());
+
+        // already shared packet is reused
+        assertSame(sharedPacket, sharedPacket.withSharedNsp(""));
+    }
+
     private void assertPacketCopied(Packet oldPacket, Packet newPacket) {
         assertNotSame(newPacket, oldPacket);
         assertEquals(oldPacket.getName(), newPacket.getName());
@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ShardedTimeoutSchedulerTest {
+
+    private final ShardedTimeoutScheduler scheduler = new ShardedTimeoutScheduler(4);
+
+    @After
+    public void after() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testShardSelection() {
+        Set<Integer> usedShards = new HashSet<Integer>();
+        for (int i = 0; i < 100; i++) {
+            UUID sessionId = UUID.randomUUID();
+            SchedulerKey key = new SchedulerKey(SchedulerKey.Type.PING_TIMEOUT, sessionId);
+            int index = scheduler.shardIndex(key);
+            assertTrue(index >= 0 && index < 4);
+            assertEquals(index, scheduler.shardIndex(new SchedulerKey(SchedulerKey.Type.PING_TIMEOUT, sessionId)));
+            usedShards.add(index);
+        }
+        assertEquals(4, usedShards.size());
+    }
+
+    @Test
+    public void testReplace() throws InterruptedException {
+        SchedulerKey key = new SchedulerKey(SchedulerKey.Type.PING_TIMEOUT, UUID.randomUUID());
+        final AtomicInteger first = new AtomicInteger();
+        final CountDownLatch second = new CountDownLatch(1);
+
+        scheduler.schedule(key, new Runnable() {
+            @Override
+            public void run() {
+                first.incrementAndGet();
+            }
+        }, 100, TimeUnit.MILLISECONDS);
+        scheduler.schedule(key, new Runnable() {
+            @Override
+            public void run() {
+                second.countDown();
+            }
+        }, 100, TimeUnit.MILLISECONDS);
+
+        assertTrue(second.await(5, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertEquals(0, first.get());
+    }
+
+    @Test
+    public void testCancelAcrossShards() throws InterruptedException {
+        UUID sessionId1 = UUID.randomUUID();
+        SchedulerKey key1 = new SchedulerKey(SchedulerKey.Type.PING_TIMEOUT, sessionId1);
+        SchedulerKey key2 = key1;
+        while (scheduler.shardIndex(key2) == scheduler.shardIndex(key1)) {
+            key2 = new SchedulerKey(SchedulerKey.Type.PING_TIMEOUT, UUID.randomUUID());
+        }
+
+        final AtomicInteger cancelled = new AtomicInteger();
+        final CountDownLatch executed = new CountDownLatch(1);
+        scheduler.schedule(key1, new Runnable() {
+            @Override
+            public void run() {
+                cancelled.incrementAndGet();
+            }
+        }, 100, TimeUnit.MILLISECONDS);
+        scheduler.schedule(key2, new Runnable() {
+            @Override
+            public void run() {
+                executed.countDown();
+            }
+        }, 100, TimeUnit.MILLISECONDS);
+
+        // equal key resolves to the same shard
+        scheduler.cancel(new SchedulerKey(SchedulerKey.Type.PING_TIMEOUT, sessionId1));
+
+        assertTrue(executed.await(5, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertEquals(0, cancelled.get());
+    }
+
+}
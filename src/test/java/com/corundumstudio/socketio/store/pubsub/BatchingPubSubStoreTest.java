@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.store.pubsub;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchingPubSubStoreTest {
+
+    private static class RecordingPubSubStore implements PubSubStore {
+
+        final BlockingQueue<PubSubMessage> published = new LinkedBlockingQueue<PubSubMessage>();
+        final BlockingQueue<PubSubMessage> publishedDirectly = new LinkedBlockingQueue<PubSubMessage>();
+        final Map<PubSubType, PubSubListener<PubSubMessage>> listeners = new HashMap<PubSubType, PubSubListener<PubSubMessage>>();
+
+        final CountDownLatch batchStarted = new CountDownLatch(1);
+        volatile CountDownLatch batchLatch = new CountDownLatch(0);
+
+        @Override
+        public void publish(PubSubType type, PubSubMessage msg) {
+            if (type != PubSubType.BATCH) {
+                publishedDirectly.add(msg);
+                return;
+            }
+            batchStarted.countDown();
+            try {
+                batchLatch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            published.add(msg);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T extends PubSubMessage> void subscribe(PubSubType type, PubSubListener<T> listener, Class<T> clazz) {
+            listeners.put(type, (PubSubListener<PubSubMessage>) listener);
+        }
+
+        @Override
+        public void unsubscribe(PubSubType type) {
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+    }
+
+    private RecordingPubSubStore delegate;
+    private BatchingPubSubStore store;
+
+    @Before
+    public void before() {
+        delegate = new RecordingPubSubStore();
+        PubSubConfig config = new PubSubConfig();
+        config.setPublishBatchDelay(50);
+        store = new BatchingPubSubStore(delegate, config);
+    }
+
+    @After
+    public void after() {
+        store.shutdown();
+    }
+
+    @Test
+    public void testPublishInBatch() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            store.publish(PubSubType.JOIN, new JoinLeaveMessage(UUID.randomUUID(), "room" + i, ""));
+        }
+
+        BatchMessage batch = (BatchMessage) delegate.published.poll(5, TimeUnit.SECONDS);
+        assertEquals(3, batch.getMessages().size());
+        assertEquals("room2", ((JoinLeaveMessage) batch.getMessages().get(2)).getRoom());
+        assertEquals(3, store.getPublishedMessages());
+        assertEquals(1, store.getPublishedBatches());
+    }
+
+    @Test
+    public void testFullQueue() throws InterruptedException {
+        store.shutdown();
+
+        delegate = new RecordingPubSubStore();
+        delegate.batchLatch = new CountDownLatch(1);
+        PubSubConfig config = new PubSubConfig();
+        config.setPublishBatchSize(1);
+        config.setPublishBatchDelay(0);
+        config.setPublishQueueSize(1);
+        store = new BatchingPubSubStore(delegate, config);
+
+        // publisher thread is blocked by first batch
+        store.publish(PubSubType.JOIN, new JoinLeaveMessage(UUID.randomUUID(), "room", ""));
+        assertTrue(delegate.batchStarted.await(5, TimeUnit.SECONDS));
+
+        UUID sessionId = UUID.randomUUID();
+        JoinLeaveMessage join = new JoinLeaveMessage(sessionId, "room", "");
+        store.publish(PubSubType.JOIN, join);
+        store.publish(PubSubType.DISPATCH, new DispatchMessage("room", null, ""));
+        assertEquals(1, store.getDroppedMessages());
+
+        JoinLeaveMessage leave = new JoinLeaveMessage(sessionId, "room", "");
+        store.publish(PubSubType.LEAVE, leave);
+        assertEquals(1, store.getDroppedMessages());
+        assertEquals(2, store.getPendingMessages());
+        assertTrue(delegate.publishedDirectly.isEmpty());
+
+        delegate.batchLatch.countDown();
+        assertNotNull(delegate.published.poll(5, TimeUnit.SECONDS));
+        // overflowed leave doesn't overtake queued join
+        assertSame(join, ((BatchMessage) delegate.published.poll(5, TimeUnit.SECONDS)).getMessages().get(0));
+        assertSame(leave, ((BatchMessage) delegate.published.poll(5, TimeUnit.SECONDS)).getMessages().get(0));
+    }
+
+    @Test
+    public void testPublishAfterShutdown() {
+        store.shutdown();
+
+        JoinLeaveMessage msg = new JoinLeaveMessage(UUID.randomUUID(), "room", "");
+        store.publish(PubSubType.JOIN, msg);
+        assertSame(msg, delegate.publishedDirectly.poll());
+        assertEquals(0, store.getPendingMessages());
+    }
+
+    @Test
+    public void testBatchDelivery() {
+        final List<JoinLeaveMessage> received = new ArrayList<JoinLeaveMessage>();
+        store.subscribe(PubSubType.LEAVE, new PubSubListener<JoinLeaveMessage>() {
+            @Override
+            public void onMessage(JoinLeaveMessage msg) {
+                received.add(msg);
+            }
+        }, JoinLeaveMessage.class);
+
+        JoinLeaveMessage msg = new JoinLeaveMessage(UUID.randomUUID(), "room", "");
+        BatchMessage batch = new BatchMessage(2);
+        batch.add(PubSubType.JOIN, new JoinLeaveMessage(UUID.randomUUID(), "room", ""));
+        batch.add(PubSubType.LEAVE, msg);
+        batch.setNodeId(1L);
+        delegate.listeners.get(PubSubType.BATCH).onMessage(batch);
+
+        assertEquals(1, received.size());
+        assertSame(msg, received.get(0));
+        assertEquals(Long.valueOf(1L), received.get(0).getNodeId());
+    }
+
+}
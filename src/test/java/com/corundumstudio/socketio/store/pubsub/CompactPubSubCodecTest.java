@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.store.pubsub;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.corundumstudio.socketio.Configuration;
+import com.corundumstudio.socketio.protocol.JacksonJsonSupport;
+import com.corundumstudio.socketio.protocol.Packet;
+import com.corundumstudio.socketio.protocol.PacketEncoder;
+import com.corundumstudio.socketio.protocol.PacketType;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.CharsetUtil;
+
+public class CompactPubSubCodecTest {
+
+    private final CompactPubSubCodec codec = new CompactPubSubCodec();
+    private final PacketEncoder encoder = new PacketEncoder(new Configuration(), new JacksonJsonSupport());
+
+    @Before
+    public void before() {
+        codec.init(new JacksonJsonSupport());
+    }
+
+    @Test
+    public void testJoinLeave() throws IOException {
+        UUID sessionId = UUID.randomUUID();
+        JoinLeaveMessage msg = new JoinLeaveMessage(sessionId, "room", "/chat");
+        msg.setNodeId(123456L);
+
+        JoinLeaveMessage res = (JoinLeaveMessage) codec.decode(codec.encode(msg));
+        assertEquals(sessionId, res.getSessionId());
+        assertEquals("room", res.getRoom());
+        assertEquals("/chat", res.getNamespace());
+        assertEquals(Long.valueOf(123456L), res.getNodeId());
+
+        JoinLeaveMessage res2 = (JoinLeaveMessage) codec.decode(codec.encode(msg));
+        assertSame(res.getRoom(), res2.getRoom());
+    }
+
+    @Test
+    public void testConnectSize() throws IOException {
+        ConnectMessage msg = new ConnectMessage(UUID.randomUUID());
+        msg.setNodeId(999999L);
+
+        byte[] data = codec.encode(msg);
+        assertEquals(1 + 3 + 16, data.length);
+        assertEquals(msg.getSessionId(), ((ConnectMessage) codec.decode(data)).getSessionId());
+    }
+
+    @Test
+    public void testDispatch() throws IOException {
+        Packet packet = new Packet(PacketType.MESSAGE);
+        packet.setSubType(PacketType.EVENT);
+        packet.setName("message");
+        packet.setData(Arrays.asList("hello", 1));
+        DispatchMessage msg = new DispatchMessage("room", packet, "/chat");
+
+        DispatchMessage res = (DispatchMessage) codec.decode(codec.encode(msg));
+        assertEquals("room", res.getRoom());
+        assertEquals("/chat", res.getNamespace());
+
+        Packet resPacket = res.getPacket();
+        assertTrue(resPacket.isEncodeOnce());
+        assertEquals(PacketType.EVENT, resPacket.getSubType());
+        assertEquals("/chat", resPacket.getNsp());
+        assertNull(resPacket.getAckId());
+
+        ByteBuf frame = encoder.encodePacket(resPacket, ByteBufAllocator.DEFAULT);
+        assertEquals("42/chat,[\"message\",\"hello\",1]", frame.toString(CharsetUtil.UTF_8));
+    }
+
+    @Test
+    public void testBatch() throws IOException {
+        BatchMessage batch = new BatchMessage(2);
+        batch.add(PubSubType.CONNECT, new ConnectMessage(UUID.randomUUID()));
+        batch.add(PubSubType.LEAVE, new JoinLeaveMessage(UUID.randomUUID(), "room", ""));
+        batch.setNodeId(1L);
+
+        BatchMessage res = (BatchMessage) codec.decode(codec.encode(batch));
+        assertEquals(Arrays.asList(PubSubType.CONNECT, PubSubType.LEAVE), res.getTypes());
+        assertEquals("room", ((JoinLeaveMessage) res.getMessages().get(1)).getRoom());
+        assertEquals(Long.valueOf(1L), res.getNodeId());
+    }
+
+    @Test
+    public void testMalformed() throws IOException {
+        BatchMessage batch = new BatchMessage(1);
+        batch.add(PubSubType.CONNECT, new ConnectMessage(UUID.randomUUID()));
+        batch.setNodeId(1L);
+        byte[] data = codec.encode(batch);
+
+        assertMalformed(Arrays.copyOf(data, data.length - 1));
+        // unknown pub/sub type
+        data[3] = 127;
+        assertMalformed(data);
+        // varint without last byte
+        assertMalformed(new byte[] {1, (byte) 0x80});
+    }
+
+    private void assertMalformed(byte[] data) {
+        try {
+            codec.decode(data);
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+}
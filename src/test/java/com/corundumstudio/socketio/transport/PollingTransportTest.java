@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2012-2019 Nikita Koksharov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.corundumstudio.socketio.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.UUID;
+
+import mockit.Expectations;
+import mockit.Mocked;
+import mockit.Verifications;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.corundumstudio.socketio.Configuration;
+import com.corundumstudio.socketio.Transport;
+import com.corundumstudio.socketio.handler.AuthorizeHandler;
+import com.corundumstudio.socketio.handler.ClientHead;
+import com.corundumstudio.socketio.handler.ClientsBox;
+import com.corundumstudio.socketio.handler.EncoderHandler;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+
+public class PollingTransportTest {
+
+    @Mocked
+    private AuthorizeHandler authorizeHandler;
+
+    @Mocked
+    private ClientHead client1;
+
+    @Mocked
+    private ClientHead client2;
+
+    private final UUID sessionId1 = UUID.randomUUID();
+    private final UUID sessionId2 = UUID.randomUUID();
+
+    private final ClientsBox clientsBox = new ClientsBox();
+    private EmbeddedChannel channel;
+
+    @Before
+    public void before() {
+        new Expectations() {{
+            client1.getSessionId(); result = sessionId1; minTimes = 0;
+            client2.getSessionId(); result = sessionId2; minTimes = 0;
+        }};
+        clientsBox.addClient(client1);
+        clientsBox.addClient(client2);
+
+        PollingTransport transport = new PollingTransport("/socket.io/", null, authorizeHandler, clientsBox, new Configuration()) {
+            @Override
+            public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            }
+        };
+        channel = new EmbeddedChannel(transport);
+    }
+
+    private void get(String query) {
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET,
+                                    "/socket.io/?EIO=3&transport=polling" + query));
+    }
+
+    @Test
+    public void testChannelReusedBySessions() {
+        get("&sid=" + sessionId1 + "&j=1&b64=1");
+        assertEquals(Integer.valueOf(1), channel.attr(EncoderHandler.JSONP_INDEX).get());
+        assertEquals(Boolean.TRUE, channel.attr(EncoderHandler.B64).get());
+        // done by mocked bindChannel
+        clientsBox.add(channel, client1);
+
+        get("&sid=" + sessionId2);
+        assertNull(channel.attr(EncoderHandler.JSONP_INDEX).get());
+        assertNull(channel.attr(EncoderHandler.B64).get());
+
+        new Verifications() {{
+            client1.bindChannel(channel, Transport.POLLING); times = 1;
+            client1.releasePollingChannel(channel); times = 1;
+            client2.bindChannel(channel, Transport.POLLING); times = 1;
+            client2.releasePollingChannel(channel); times = 0;
+        }};
+    }
+
+    @Test
+    public void testChannelReusedBySameSession() {
+        get("&sid=" + sessionId1);
+        clientsBox.add(channel, client1);
+        get("&sid=" + sessionId1);
+
+        new Verifications() {{
+            client1.bindChannel(channel, Transport.POLLING); times = 2;
+            client1.releasePollingChannel(channel); times = 0;
+        }};
+    }
+
+}